@@ -0,0 +1,48 @@
+package yuri;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic task fixtures shared by the benchmarks.
+ */
+final class BenchData {
+
+    private static final String[] WORDS = {
+        "read", "book", "return", "lunch", "report", "review", "call", "mum", "fix", "bug",
+        "write", "essay", "buy", "milk", "meeting", "gym", "plan", "trip", "pay", "bills",
+    };
+
+    private BenchData() {
+    }
+
+    /**
+     * Builds {@code n} tasks cycling through todos, deadlines and events.
+     *
+     * @param n number of tasks
+     * @return new mutable list of tasks
+     */
+    static List<Yuri.Task> tasks(int n) {
+        List<Yuri.Task> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String desc = WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i;
+            Yuri.Task t;
+            switch (i % 3) {
+                case 0:
+                    t = new Yuri.Todo(desc);
+                    break;
+                case 1:
+                    t = new Yuri.Deadline(desc, "2025-09-" + (10 + i % 19));
+                    break;
+                default:
+                    t = new Yuri.Event(desc, "2025-10-01", "2025-10-" + (10 + i % 19));
+                    break;
+            }
+            if (i % 4 == 0) {
+                t.mark();
+            }
+            out.add(t);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,103 @@
+package yuri;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end cost of {@link Yuri#getResponse(String)} per command type, including persistence.
+ * Adding commands are paired with a delete of the new last task so the list size stays fixed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private Path dir;
+    private Yuri yuri;
+    private String deleteLast;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("yuri-bench");
+        Storage storage = new Storage(dir.resolve("duke.txt").toString());
+        storage.save(BenchData.tasks(size));
+        yuri = new Yuri(storage);
+        deleteLast = "delete " + (size + 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        yuri.shutdown();
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public String list() {
+        return yuri.getResponse("list");
+    }
+
+    @Benchmark
+    public String find() {
+        return yuri.getResponse("find report");
+    }
+
+    @Benchmark
+    public String mark() {
+        return yuri.getResponse("mark 2");
+    }
+
+    @Benchmark
+    public String unmark() {
+        return yuri.getResponse("unmark 2");
+    }
+
+    @Benchmark
+    public String todoThenDelete() {
+        yuri.getResponse("todo read the benchmark report");
+        return yuri.getResponse(deleteLast);
+    }
+
+    @Benchmark
+    public String deadlineThenDelete() {
+        yuri.getResponse("deadline return book /by 2019-12-02");
+        return yuri.getResponse(deleteLast);
+    }
+
+    @Benchmark
+    public String eventThenDelete() {
+        yuri.getResponse("event book fair /from 2019-12-10 /to 2019-12-12");
+        return yuri.getResponse(deleteLast);
+    }
+
+    @Benchmark
+    public String unknownCommand() {
+        return yuri.getResponse("blah blah");
+    }
+}
@@ -0,0 +1,53 @@
+package yuri;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-call cost of the {@link Parser} helpers used by every command.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    private final Parser parser = new Parser();
+
+    @Benchmark
+    public int parseIndex() throws Yuri.YuriException {
+        return parser.parseIndexOrThrow("mark 42", "mark");
+    }
+
+    @Benchmark
+    public int[] parseSinglePosition() throws Yuri.YuriException {
+        return parser.parsePositionsOrThrow("mark 42", "mark", 100);
+    }
+
+    @Benchmark
+    public int[] parsePositionList() throws Yuri.YuriException {
+        return parser.parsePositionsOrThrow("mark 1-20, 42, 57-60", "mark", 100);
+    }
+
+    @Benchmark
+    public String[] splitOnceBy() throws Yuri.YuriException {
+        return parser.splitOnceOrThrow("return book /by 2019-12-02", "/by", "missing /by");
+    }
+
+    @Benchmark
+    public String[] splitOnceFromTo() throws Yuri.YuriException {
+        String[] from = parser.splitOnceOrThrow("book fair /from 2019-12-10 /to 2019-12-12", "/from", "missing");
+        return parser.splitOnceOrThrow(from[1], "/to", "missing");
+    }
+}
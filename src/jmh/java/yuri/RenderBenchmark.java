@@ -0,0 +1,44 @@
+package yuri;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of rendering single tasks with {@code toString()}, as done by list and find.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    private final Yuri.Task todo = new Yuri.Todo("read book");
+    private final Yuri.Task deadline = new Yuri.Deadline("return book", "2019-12-02");
+    private final Yuri.Task event = new Yuri.Event("book fair", "2019-12-10", "2019-12-12");
+
+    @Benchmark
+    public String todo() {
+        return todo.toString();
+    }
+
+    @Benchmark
+    public String deadline() {
+        return deadline.toString();
+    }
+
+    @Benchmark
+    public String event() {
+        return event.toString();
+    }
+}
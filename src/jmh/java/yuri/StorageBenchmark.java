@@ -0,0 +1,75 @@
+package yuri;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full snapshot load and save at several list sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StorageBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private Path file;
+    private Storage storage;
+    private List<Yuri.Task> tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("yuri-bench", ".txt");
+        storage = new Storage(file.toString());
+        tasks = BenchData.tasks(size);
+        storage.save(tasks);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        storage.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public List<Yuri.Task> load() throws IOException {
+        return storage.load();
+    }
+
+    /** Loads and then reads every task, which forces lazily indexed snapshots to be parsed. */
+    @Benchmark
+    public int loadAndReadAll() throws IOException {
+        List<Yuri.Task> loaded = storage.load();
+        int done = 0;
+        for (Yuri.Task t : loaded) {
+            done += t.isDone ? 1 : 0;
+        }
+        return done;
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        storage.save(tasks);
+    }
+}
@@ -0,0 +1,284 @@
+package yuri;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary snapshot format, read and written through NIO byte buffers.
+ *
+ * <pre>
+ * header:  "YURI" magic (4 bytes) | version (2 bytes) | record count (4 bytes)
+ *          | next ID (4 bytes)
+ * record:  type ('T', 'D' or 'E', 1 byte) | flags (1 byte) | ID (4 bytes)
+ *          | due epoch day (4 bytes, D only) | from, to epoch days (4 + 4 bytes, E only)
+ *          | last done occurrence as an epoch day (4 bytes, only if flag bit 3 is set)
+ *          | description length (4 bytes) | description (UTF-8)
+ * </pre>
+ *
+ * Dates are stored as epoch days, so loading them needs no text parsing.
+ * Bit 0 of the flags is the done state and bits 1-2 hold how often a deadline or event repeats:
+ * 0 for never, else the {@link Recurrence} ordinal plus one. Bit 3 is set for a repeating task
+ * with some occurrences done.
+ * Version 2 and 3 files, which never set the bits they did not know yet, read the same way;
+ * version 1 files, which have no IDs, are still read too and their tasks get ID 0.
+ */
+final class BinarySaveFormat {
+
+    /** Current format version written to the header. */
+    static final short VERSION = 4;
+
+    private static final short VERSION_WITHOUT_DONE_OCCURRENCES = 3;
+    private static final short VERSION_WITHOUT_RECURRENCE = 2;
+    private static final short VERSION_WITHOUT_IDS = 1;
+    private static final int DONE_FLAG = 1;
+    private static final int RECURRENCE_SHIFT = 1;
+    private static final int DONE_THROUGH_FLAG = 1 << 3;
+
+    private static final byte[] MAGIC = {'Y', 'U', 'R', 'I'};
+    private static final int HEADER_SIZE = MAGIC.length + 2 + 4;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private BinarySaveFormat() {
+    }
+
+    /**
+     * Returns whether the file starts with the binary format's magic bytes.
+     *
+     * @param path file to inspect
+     * @return true if the file is a binary snapshot
+     * @throws IOException if the file cannot be read
+     */
+    static boolean isBinary(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(MAGIC.length);
+            while (head.hasRemaining() && ch.read(head) > 0) {
+                // keep reading until the magic is complete or the file ends
+            }
+            if (head.hasRemaining()) {
+                return false;
+            }
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (head.get(i) != MAGIC[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Writes the tasks as a binary snapshot, replacing the file's contents.
+     *
+     * @param tasks  tasks to write
+     * @param nextId next ID to hand out, recorded in the header
+     * @param target file to write
+     * @throws IOException if writing fails
+     */
+    static void write(List<Yuri.Task> tasks, int nextId, Path target) throws IOException {
+        try (FileChannel ch = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buf.put(MAGIC).putShort(VERSION).putInt(tasks.size()).putInt(nextId);
+            for (Yuri.Task task : tasks) {
+                assert task != null : "Individual task must not be null";
+                byte[] desc = task.getDescription().getBytes(StandardCharsets.UTF_8);
+                ensureRoom(ch, buf, 2 + 4 + 8 + 4 + 4);
+                if (task instanceof Yuri.Deadline) {
+                    buf.put((byte) 'D').put(flags(task)).putInt(task.id);
+                    buf.putInt((int) ((Yuri.Deadline) task).getBy().toEpochDay());
+                } else if (task instanceof Yuri.Event) {
+                    Yuri.Event e = (Yuri.Event) task;
+                    buf.put((byte) 'E').put(flags(task)).putInt(task.id);
+                    buf.putInt((int) e.getFrom().toEpochDay()).putInt((int) e.getTo().toEpochDay());
+                } else {
+                    buf.put((byte) 'T').put(flags(task)).putInt(task.id);
+                }
+                if (task.getDoneThrough() != null) {
+                    buf.putInt((int) task.getDoneThrough().toEpochDay());
+                }
+                buf.putInt(desc.length);
+                if (desc.length <= buf.remaining()) {
+                    buf.put(desc);
+                } else {
+                    drain(ch, buf);
+                    writeFully(ch, ByteBuffer.wrap(desc));
+                }
+            }
+            drain(ch, buf);
+        }
+    }
+
+    /**
+     * Reads the next ID recorded in a binary snapshot's header.
+     *
+     * @param path file to read
+     * @return the next ID, or 0 for a version 1 file
+     * @throws IOException if the file cannot be read, is truncated, or has an unknown version
+     */
+    static int readNextId(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + 4);
+            buf.flip();
+            short version = readHeader(ch, buf, path);
+            if (version == VERSION_WITHOUT_IDS) {
+                return 0;
+            }
+            buf.getInt(); // record count
+            fill(ch, buf, 4);
+            return buf.getInt();
+        }
+    }
+
+    /**
+     * Reads a binary snapshot.
+     *
+     * @param path file to read
+     * @return tasks in file order
+     * @throws IOException if the file cannot be read, is truncated, or has an unknown version
+     */
+    static ArrayList<Yuri.Task> read(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buf.flip();
+            short version = readHeader(ch, buf, path);
+            int count = buf.getInt();
+            boolean hasIds = version != VERSION_WITHOUT_IDS;
+            if (hasIds) {
+                fill(ch, buf, 4);
+                buf.getInt(); // next ID, see readNextId
+            }
+            ArrayList<Yuri.Task> tasks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                fill(ch, buf, hasIds ? 6 : 2);
+                byte type = buf.get();
+                int flags = buf.get();
+                boolean done = (flags & DONE_FLAG) != 0;
+                Recurrence every = recurrence(flags, path);
+                int id = hasIds ? buf.getInt() : 0;
+                LocalDate first = null;
+                LocalDate second = null;
+                if (type == 'D') {
+                    fill(ch, buf, 4);
+                    first = LocalDate.ofEpochDay(buf.getInt());
+                } else if (type == 'E') {
+                    fill(ch, buf, 8);
+                    first = LocalDate.ofEpochDay(buf.getInt());
+                    second = LocalDate.ofEpochDay(buf.getInt());
+                } else if (type != 'T') {
+                    throw new IOException("Unknown task type " + type + " in " + path);
+                }
+                LocalDate doneThrough = null;
+                if ((flags & DONE_THROUGH_FLAG) != 0) {
+                    fill(ch, buf, 4);
+                    doneThrough = LocalDate.ofEpochDay(buf.getInt());
+                }
+                fill(ch, buf, 4);
+                String desc = readString(ch, buf, buf.getInt());
+
+                Yuri.Task t;
+                if (type == 'D') {
+                    t = every == null ? new Yuri.Deadline(desc, first)
+                            : new Yuri.RecurringDeadline(desc, first, every);
+                } else if (type == 'E') {
+                    t = every == null ? new Yuri.Event(desc, first, second)
+                            : new Yuri.RecurringEvent(desc, first, second, every);
+                } else {
+                    t = new Yuri.Todo(desc);
+                }
+                if (doneThrough != null) {
+                    t.setDoneThrough(doneThrough);
+                }
+                if (done) t.mark();
+                t.id = id;
+                tasks.add(t);
+            }
+            return tasks;
+        }
+    }
+
+    private static byte flags(Yuri.Task task) {
+        Recurrence every = task.getRecurrence();
+        int repeat = every == null ? 0 : every.ordinal() + 1;
+        return (byte) ((task.isDone ? DONE_FLAG : 0) | repeat << RECURRENCE_SHIFT
+                | (task.getDoneThrough() != null ? DONE_THROUGH_FLAG : 0));
+    }
+
+    private static Recurrence recurrence(int flags, Path path) throws IOException {
+        int repeat = (flags >> RECURRENCE_SHIFT) & 3;
+        if (repeat > Recurrence.values().length) {
+            throw new IOException("Unknown recurrence " + repeat + " in " + path);
+        }
+        return repeat == 0 ? null : Recurrence.values()[repeat - 1];
+    }
+
+    /** Reads magic and version, leaving the record count next in {@code buf}. */
+    private static short readHeader(FileChannel ch, ByteBuffer buf, Path path) throws IOException {
+        fill(ch, buf, HEADER_SIZE);
+        buf.position(buf.position() + MAGIC.length);
+        short version = buf.getShort();
+        if (version != VERSION && version != VERSION_WITHOUT_DONE_OCCURRENCES
+                && version != VERSION_WITHOUT_RECURRENCE && version != VERSION_WITHOUT_IDS) {
+            throw new IOException("Unsupported save file version " + version + " in " + path);
+        }
+        return version;
+    }
+
+    /* =========================
+       Internal: buffer helpers
+       ========================= */
+
+    private static String readString(FileChannel ch, ByteBuffer buf, int len) throws IOException {
+        byte[] bytes = new byte[len];
+        int copied = Math.min(len, buf.remaining());
+        buf.get(bytes, 0, copied);
+        if (copied < len) {
+            ByteBuffer rest = ByteBuffer.wrap(bytes, copied, len - copied);
+            while (rest.hasRemaining()) {
+                if (ch.read(rest) < 0) {
+                    throw new EOFException("Truncated save file");
+                }
+            }
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Makes sure at least {@code n} unread bytes are in {@code buf} (which is in read mode). */
+    private static void fill(FileChannel ch, ByteBuffer buf, int n) throws IOException {
+        if (buf.remaining() >= n) {
+            return;
+        }
+        buf.compact();
+        while (buf.position() < n) {
+            if (ch.read(buf) < 0) {
+                throw new EOFException("Truncated save file");
+            }
+        }
+        buf.flip();
+    }
+
+    private static void ensureRoom(FileChannel ch, ByteBuffer buf, int n) throws IOException {
+        if (buf.remaining() < n) {
+            drain(ch, buf);
+        }
+    }
+
+    private static void drain(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        writeFully(ch, buf);
+        buf.clear();
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+    }
+}
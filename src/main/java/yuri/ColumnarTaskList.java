@@ -0,0 +1,735 @@
+package yuri;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Task list stored as parallel primitive columns instead of one object per task.
+ *
+ * <p>Each task costs a type byte, a recurrence byte, three epoch-day ints, an ID, an offset and
+ * a length into a shared UTF-8 description pool and one bit of done state, roughly 26 bytes plus
+ * its description, where a {@link Yuri.Task} object graph costs over 100. {@link #get(int)} builds a
+ * fresh task from the columns on every call, so changing the returned task does not change the
+ * list; use {@link #mark(int)} and {@link #unmark(int)} instead.</p>
+ *
+ * <p>There is no search index: {@link #findPositions(String)}, {@link #dueOn(LocalDate)} and
+ * {@link #dueBefore(LocalDate)} scan the columns, matching ASCII descriptions byte by byte without
+ * decoding them. Large lists are searched in parallel segments. Prefer {@link TaskList} unless the
+ * list is too large to keep as objects.</p>
+ *
+ * <p>Stable IDs are kept in their own column. {@link Storage} hands IDs out in increasing order
+ * and tasks are only ever appended, so the column is sorted and {@link #indexOfId(int)} is a
+ * binary search rather than a hash index that would cost more memory than the columns.</p>
+ */
+public class ColumnarTaskList implements TaskStore {
+
+    private static final byte TODO = 'T';
+    private static final byte DEADLINE = 'D';
+    private static final byte EVENT = 'E';
+
+    /** The pool is compacted once removed descriptions take up more than half of it. */
+    private static final int MIN_COMPACT_BYTES = 1 << 16;
+    private static final int MAX_ARRAY = Integer.MAX_VALUE - 8;
+    /** Lists with fewer tasks than this are searched on the calling thread. */
+    static final int PARALLEL_SCAN_CUTOFF = 1 << 15;
+    /** {@link #doneDay} of a task with no occurrence done. */
+    private static final int NONE_DONE = Integer.MIN_VALUE;
+
+    private byte[] types;
+    /** 0 for tasks that happen once, else the {@link Recurrence} ordinal plus one. */
+    private byte[] repeats;
+    /** Due day of deadlines and start day of events, as epoch days. */
+    private int[] day1;
+    /** End day of events, as epoch days. */
+    private int[] day2;
+    /** Last done occurrence of recurring tasks, as epoch days, or {@link #NONE_DONE}. */
+    private int[] doneDay;
+    private int[] descStart;
+    private int[] descLen;
+    private int[] ids;
+    private final BitSet done;
+    /** Tasks whose description contains non-ASCII bytes and so must be decoded to be searched. */
+    private final BitSet nonAscii;
+    private byte[] pool;
+    private int poolUsed;
+    private int poolGarbage;
+    private int size;
+
+    /**
+     * Constructs an empty task list.
+     */
+    public ColumnarTaskList() {
+        this(16);
+    }
+
+    /**
+     * Constructs a task list initialized with the given tasks.
+     *
+     * @param initial tasks to copy into the columns, in order
+     */
+    public ColumnarTaskList(List<Yuri.Task> initial) {
+        this(Math.max(16, initial.size()));
+        for (Yuri.Task t : initial) {
+            add(t);
+        }
+    }
+
+    private ColumnarTaskList(int capacity) {
+        types = new byte[capacity];
+        repeats = new byte[capacity];
+        day1 = new int[capacity];
+        day2 = new int[capacity];
+        doneDay = new int[capacity];
+        descStart = new int[capacity];
+        descLen = new int[capacity];
+        ids = new int[capacity];
+        done = new BitSet(capacity);
+        nonAscii = new BitSet();
+        pool = new byte[capacity * 16];
+    }
+
+    /** Copies rows {@code [from, to)} of {@code src}, sharing its pool. */
+    private ColumnarTaskList(ColumnarTaskList src, int from, int to) {
+        types = Arrays.copyOfRange(src.types, from, to);
+        repeats = Arrays.copyOfRange(src.repeats, from, to);
+        day1 = Arrays.copyOfRange(src.day1, from, to);
+        day2 = Arrays.copyOfRange(src.day2, from, to);
+        doneDay = Arrays.copyOfRange(src.doneDay, from, to);
+        descStart = Arrays.copyOfRange(src.descStart, from, to);
+        descLen = Arrays.copyOfRange(src.descLen, from, to);
+        ids = Arrays.copyOfRange(src.ids, from, to);
+        done = src.done.get(from, to);
+        nonAscii = src.nonAscii.get(from, to);
+        pool = src.pool;
+        poolUsed = src.poolUsed;
+        size = to - from;
+    }
+
+    /** Copies the columns of {@code src}; the pool is shared because stored ranges never change. */
+    private ColumnarTaskList(ColumnarTaskList src) {
+        types = Arrays.copyOf(src.types, src.size);
+        repeats = Arrays.copyOf(src.repeats, src.size);
+        day1 = Arrays.copyOf(src.day1, src.size);
+        day2 = Arrays.copyOf(src.day2, src.size);
+        doneDay = Arrays.copyOf(src.doneDay, src.size);
+        descStart = Arrays.copyOf(src.descStart, src.size);
+        descLen = Arrays.copyOf(src.descLen, src.size);
+        ids = Arrays.copyOf(src.ids, src.size);
+        done = (BitSet) src.done.clone();
+        nonAscii = (BitSet) src.nonAscii.clone();
+        pool = src.pool;
+        poolUsed = src.poolUsed;
+        size = src.size;
+    }
+
+    /**
+     * Adds a task to the end of the list.
+     *
+     * @param t task to add
+     */
+    @Override
+    public void add(Yuri.Task t) {
+        assert t != null : "Task to add must not be null";
+        if (size == types.length) {
+            grow();
+        }
+        if (t instanceof Yuri.Deadline) {
+            types[size] = DEADLINE;
+            day1[size] = (int) ((Yuri.Deadline) t).getBy().toEpochDay();
+        } else if (t instanceof Yuri.Event) {
+            Yuri.Event e = (Yuri.Event) t;
+            types[size] = EVENT;
+            day1[size] = (int) e.getFrom().toEpochDay();
+            day2[size] = (int) e.getTo().toEpochDay();
+        } else {
+            types[size] = TODO;
+        }
+        Recurrence every = t.getRecurrence();
+        repeats[size] = every == null ? 0 : (byte) (every.ordinal() + 1);
+        LocalDate doneThrough = t.getDoneThrough();
+        doneDay[size] = doneThrough == null ? NONE_DONE : (int) doneThrough.toEpochDay();
+        done.set(size, t.isDone);
+        ids[size] = t.id;
+
+        byte[] desc = t.getDescription().getBytes(StandardCharsets.UTF_8);
+        if (poolUsed + desc.length > pool.length) {
+            growPool(desc.length);
+        }
+        System.arraycopy(desc, 0, pool, poolUsed, desc.length);
+        descStart[size] = poolUsed;
+        descLen[size] = desc.length;
+        nonAscii.set(size, !isAscii(desc));
+        poolUsed += desc.length;
+        size++;
+    }
+
+    /**
+     * Returns a new task built from the columns at the given zero-based index.
+     *
+     * @param idx0 zero-based index of the task
+     * @return a detached copy of the task at {@code idx0}
+     */
+    @Override
+    public Yuri.Task get(int idx0) {
+        assert idx0 >= 0 && idx0 < size : "Index out of bounds";
+        String desc = new String(pool, descStart[idx0], descLen[idx0], StandardCharsets.UTF_8);
+        Recurrence every = recurrence(idx0);
+        Yuri.Task t;
+        switch (types[idx0]) {
+            case DEADLINE:
+                LocalDate by = LocalDate.ofEpochDay(day1[idx0]);
+                t = every == null ? new Yuri.Deadline(desc, by)
+                        : new Yuri.RecurringDeadline(desc, by, every);
+                break;
+            case EVENT:
+                LocalDate from = LocalDate.ofEpochDay(day1[idx0]);
+                LocalDate to = LocalDate.ofEpochDay(day2[idx0]);
+                t = every == null ? new Yuri.Event(desc, from, to)
+                        : new Yuri.RecurringEvent(desc, from, to, every);
+                break;
+            default:
+                t = new Yuri.Todo(desc);
+        }
+        if (done.get(idx0)) {
+            t.mark();
+        }
+        if (doneDay[idx0] != NONE_DONE) {
+            t.setDoneThrough(LocalDate.ofEpochDay(doneDay[idx0]));
+        }
+        t.id = ids[idx0];
+        return t;
+    }
+
+    /**
+     * Returns the current position of the task with the given stable ID.
+     *
+     * @param id stable ID of the task
+     * @return zero-based position of the task, or -1 if no task has that ID
+     */
+    @Override
+    public int indexOfId(int id) {
+        if (id <= 0) {
+            return -1;
+        }
+        int at = Arrays.binarySearch(ids, 0, size, id);
+        return at >= 0 ? at : -1;
+    }
+
+    /**
+     * Removes and returns the task at the given zero-based index.
+     *
+     * @param idx0 zero-based index of the task to remove
+     * @return the removed task
+     */
+    @Override
+    public Yuri.Task remove(int idx0) {
+        Yuri.Task removed = get(idx0);
+        poolGarbage += descLen[idx0];
+        int tail = size - idx0 - 1;
+        System.arraycopy(types, idx0 + 1, types, idx0, tail);
+        System.arraycopy(repeats, idx0 + 1, repeats, idx0, tail);
+        System.arraycopy(day1, idx0 + 1, day1, idx0, tail);
+        System.arraycopy(day2, idx0 + 1, day2, idx0, tail);
+        System.arraycopy(doneDay, idx0 + 1, doneDay, idx0, tail);
+        System.arraycopy(descStart, idx0 + 1, descStart, idx0, tail);
+        System.arraycopy(descLen, idx0 + 1, descLen, idx0, tail);
+        System.arraycopy(ids, idx0 + 1, ids, idx0, tail);
+        shiftDown(done, idx0, size);
+        shiftDown(nonAscii, idx0, size);
+        size--;
+        if (poolGarbage > MIN_COMPACT_BYTES && poolGarbage > poolUsed / 2) {
+            compactPool();
+        }
+        return removed;
+    }
+
+    /**
+     * Removes the tasks at the given positions, compacting every column in a single pass.
+     *
+     * @param positions ascending, distinct zero-based positions to remove
+     * @return the removed tasks, in list order
+     */
+    @Override
+    public List<Yuri.Task> removeAll(int[] positions) {
+        List<Yuri.Task> removed = new ArrayList<>(positions.length);
+        int w = 0;
+        int k = 0;
+        for (int i = 0; i < size; i++) {
+            if (k < positions.length && positions[k] == i) {
+                k++;
+                removed.add(get(i));
+                poolGarbage += descLen[i];
+                continue;
+            }
+            types[w] = types[i];
+            repeats[w] = repeats[i];
+            day1[w] = day1[i];
+            day2[w] = day2[i];
+            doneDay[w] = doneDay[i];
+            descStart[w] = descStart[i];
+            descLen[w] = descLen[i];
+            ids[w] = ids[i];
+            done.set(w, done.get(i));
+            nonAscii.set(w, nonAscii.get(i));
+            w++;
+        }
+        assert k == positions.length : "Position out of bounds";
+        done.clear(w, size);
+        nonAscii.clear(w, size);
+        size = w;
+        if (poolGarbage > MIN_COMPACT_BYTES && poolGarbage > poolUsed / 2) {
+            compactPool();
+        }
+        return removed;
+    }
+
+    /**
+     * Inserts tasks at the given final positions. The new tasks are appended first, then every
+     * column is shifted up in one pass from the back while the appended rows drop into place.
+     *
+     * @param positions ascending, distinct zero-based positions in the resulting list
+     * @param inserted  tasks to insert, one per position
+     */
+    @Override
+    public void insertAll(int[] positions, List<Yuri.Task> inserted) {
+        assert positions.length == inserted.size() : "One position per inserted task";
+        int n = size;
+        for (Yuri.Task t : inserted) {
+            add(t);
+        }
+        ColumnarTaskList added = new ColumnarTaskList(this, n, size);
+        int src = n - 1;
+        for (int i = size - 1, k = positions.length - 1; k >= 0; i--) {
+            if (positions[k] == i) {
+                copyRow(added, k--, i);
+            } else {
+                copyRow(this, src--, i);
+            }
+        }
+    }
+
+    /**
+     * Marks the tasks at the given zero-based positions as done.
+     *
+     * @param positions zero-based positions of the tasks to mark
+     */
+    @Override
+    public void markAll(int[] positions) {
+        for (int pos : positions) {
+            mark(pos);
+        }
+    }
+
+    /**
+     * Marks the tasks at the given zero-based positions as not done.
+     *
+     * @param positions zero-based positions of the tasks to unmark
+     */
+    @Override
+    public void unmarkAll(int[] positions) {
+        for (int pos : positions) {
+            unmark(pos);
+        }
+    }
+
+    /**
+     * Returns the positions of tasks that are done.
+     *
+     * @return ascending zero-based positions (possibly empty)
+     */
+    @Override
+    public int[] donePositions() {
+        return done.stream().toArray();
+    }
+
+    /**
+     * Marks the task at the given zero-based index as done.
+     *
+     * @param idx0 zero-based index of the task to mark
+     */
+    @Override
+    public void mark(int idx0) {
+        assert idx0 >= 0 && idx0 < size : "Index out of bounds";
+        done.set(idx0);
+    }
+
+    /**
+     * Marks the task at the given zero-based index as not done.
+     *
+     * @param idx0 zero-based index of the task to unmark
+     */
+    @Override
+    public void unmark(int idx0) {
+        assert idx0 >= 0 && idx0 < size : "Index out of bounds";
+        done.clear(idx0);
+    }
+
+    /**
+     * Sets the last done occurrence of the repeating task at the given zero-based index.
+     * Does nothing for a task that happens once.
+     *
+     * @param idx0 zero-based index of the task
+     * @param day  last done occurrence, or {@code null} to open them all
+     */
+    @Override
+    public void setDoneThrough(int idx0, LocalDate day) {
+        assert idx0 >= 0 && idx0 < size : "Index out of bounds";
+        if (repeats[idx0] != 0) {
+            doneDay[idx0] = day == null ? NONE_DONE : (int) day.toEpochDay();
+        }
+    }
+
+    /**
+     * Returns all tasks matching the given query, see {@link #findPositions(String)}.
+     *
+     * @param keyword query to search for
+     * @return list of matching tasks (possibly empty)
+     * @throws IllegalArgumentException if keyword is null or blank
+     */
+    @Override
+    public List<Yuri.Task> find(String keyword) {
+        int[] positions = findPositions(keyword);
+        List<Yuri.Task> results = new ArrayList<>(positions.length);
+        for (int pos : positions) {
+            results.add(get(pos));
+        }
+        return results;
+    }
+
+    /**
+     * Returns the zero-based positions of tasks matching the given query, in list order.
+     * The query syntax is the same as {@link TaskList#findPositions(String)}.
+     *
+     * @param query query to search for
+     * @return ascending zero-based positions of matching tasks (possibly empty)
+     * @throws IllegalArgumentException if query is null or blank
+     */
+    @Override
+    public int[] findPositions(String query) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new IllegalArgumentException("Keyword cannot be empty.");
+        }
+        List<List<String>> groups = TaskList.queryGroups(query);
+        byte[][][] prefixes = new byte[groups.size()][][];
+        for (int g = 0; g < groups.size(); g++) {
+            List<String> words = groups.get(g);
+            prefixes[g] = new byte[words.size()][];
+            for (int w = 0; w < words.size(); w++) {
+                prefixes[g][w] = words.get(w).getBytes(StandardCharsets.UTF_8);
+            }
+        }
+
+        List<int[]> parts = ParallelSegments.map(size, PARALLEL_SCAN_CUTOFF, (from, to) -> {
+            int[] hits = new int[16];
+            int n = 0;
+            for (int i = from; i < to; i++) {
+                if (matchesAny(i, groups, prefixes)) {
+                    if (n == hits.length) {
+                        hits = Arrays.copyOf(hits, n * 2);
+                    }
+                    hits[n++] = i;
+                }
+            }
+            return Arrays.copyOf(hits, n);
+        });
+        int total = 0;
+        for (int[] part : parts) {
+            total += part.length;
+        }
+        int[] positions = new int[total];
+        int at = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, positions, at, part.length);
+            at += part.length;
+        }
+        return positions;
+    }
+
+    /**
+     * Returns the positions of deadlines due on the given day that are not done yet, including
+     * recurring deadlines with an open occurrence on that day.
+     *
+     * @param day due date to look up
+     * @return ascending zero-based positions (possibly empty)
+     */
+    @Override
+    public int[] dueOn(LocalDate day) {
+        assert day != null : "day must not be null";
+        int target = (int) day.toEpochDay();
+        int[] hits = new int[16];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (isPendingDeadline(i) && (repeats[i] == 0 ? day1[i] == target
+                    : firstOpen(i, day).equals(day))) {
+                if (n == hits.length) {
+                    hits = Arrays.copyOf(hits, n * 2);
+                }
+                hits[n++] = i;
+            }
+        }
+        return Arrays.copyOf(hits, n);
+    }
+
+    /**
+     * Returns the positions of deadlines due strictly before the given day that are not done yet,
+     * ordered by due date and then by list position. A recurring deadline is listed once, dated
+     * by its first open occurrence, if that is before the day.
+     *
+     * @param day exclusive upper bound on the due date
+     * @return zero-based positions (possibly empty)
+     */
+    @Override
+    public int[] dueBefore(LocalDate day) {
+        assert day != null : "day must not be null";
+        int bound = (int) day.toEpochDay();
+        // due day in the high half and position in the low half, so one sort orders both
+        long[] keys = new long[16];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (!isPendingDeadline(i)) {
+                continue;
+            }
+            // a recurring deadline is listed once, at its first open occurrence
+            long due = repeats[i] == 0 ? day1[i]
+                    : firstOpen(i, LocalDate.ofEpochDay(day1[i])).toEpochDay();
+            if (due < bound) {
+                if (n == keys.length) {
+                    keys = Arrays.copyOf(keys, n * 2);
+                }
+                keys[n++] = (due << 32) | i;
+            }
+        }
+        Arrays.sort(keys, 0, n);
+        int[] positions = new int[n];
+        for (int i = 0; i < n; i++) {
+            positions[i] = (int) keys[i];
+        }
+        return positions;
+    }
+
+    /**
+     * Returns the number of tasks currently in the list.
+     *
+     * @return task count
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns an unmodifiable view of the tasks; each element is built on access.
+     *
+     * @return unmodifiable list view of tasks
+     */
+    @Override
+    public List<Yuri.Task> all() {
+        return new AbstractList<>() {
+            @Override
+            public Yuri.Task get(int index) {
+                return ColumnarTaskList.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Returns a view over a copy of the columns. The description pool is shared rather than
+     * copied, since stored descriptions are never overwritten in place.
+     *
+     * @return immutable copy of the current tasks
+     */
+    @Override
+    public List<Yuri.Task> snapshot() {
+        return new ColumnarTaskList(this).all();
+    }
+
+    /**
+     * Passes the ID and date of each pending deadline and event to {@code sink}, straight from
+     * the type, done, day and ID columns.
+     *
+     * @param sink receives each task's ID and date, in list order
+     */
+    @Override
+    public void forEachPendingDate(TaskStore.DateSink sink) {
+        for (int i = 0; i < size; i++) {
+            if (types[i] != TODO && !done.get(i) && ids[i] > 0) {
+                sink.accept(ids[i], day1[i]);
+            }
+        }
+    }
+
+    /* =========================
+       Internal: search
+       ========================= */
+
+    private boolean isPendingDeadline(int i) {
+        return types[i] == DEADLINE && !done.get(i);
+    }
+
+    private Recurrence recurrence(int i) {
+        return repeats[i] == 0 ? null : Recurrence.values()[repeats[i] - 1];
+    }
+
+    /** First occurrence of recurring row {@code i} on or after {@code day} that is not done. */
+    private LocalDate firstOpen(int i, LocalDate day) {
+        LocalDate doneThrough = doneDay[i] == NONE_DONE ? null : LocalDate.ofEpochDay(doneDay[i]);
+        return recurrence(i).nextOpen(LocalDate.ofEpochDay(day1[i]), doneThrough, day);
+    }
+
+    private boolean matchesAny(int i, List<List<String>> groups, byte[][][] prefixes) {
+        if (nonAscii.get(i)) {
+            List<String> words = TaskList.tokens(
+                    new String(pool, descStart[i], descLen[i], StandardCharsets.UTF_8));
+            for (List<String> group : groups) {
+                if (!group.isEmpty() && matchesAll(words, group)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (byte[][] group : prefixes) {
+            if (group.length > 0 && matchesAll(descStart[i], descStart[i] + descLen[i], group)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesAll(int from, int to, byte[][] group) {
+        for (byte[] prefix : group) {
+            if (!hasWordStartingWith(from, to, prefix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesAll(List<String> words, List<String> group) {
+        for (String prefix : group) {
+            boolean found = false;
+            for (String word : words) {
+                if (word.startsWith(prefix)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns whether some ASCII word in {@code pool[from, to)} starts with the lowercase prefix. */
+    private boolean hasWordStartingWith(int from, int to, byte[] prefix) {
+        int i = from;
+        while (i < to) {
+            while (i < to && !isWordByte(pool[i])) {
+                i++;
+            }
+            int j = 0;
+            while (j < prefix.length && i + j < to && lower(pool[i + j]) == prefix[j]) {
+                j++;
+            }
+            if (j == prefix.length) {
+                return true;
+            }
+            while (i < to && isWordByte(pool[i])) {
+                i++;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isWordByte(byte b) {
+        return (b >= '0' && b <= '9') || (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+
+    private static byte lower(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private static boolean isAscii(byte[] b) {
+        for (byte c : b) {
+            if (c < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* =========================
+       Internal: storage
+       ========================= */
+
+    /** Overwrites row {@code to} of this list with row {@code from} of {@code src}. */
+    private void copyRow(ColumnarTaskList src, int from, int to) {
+        types[to] = src.types[from];
+        repeats[to] = src.repeats[from];
+        day1[to] = src.day1[from];
+        day2[to] = src.day2[from];
+        doneDay[to] = src.doneDay[from];
+        descStart[to] = src.descStart[from];
+        descLen[to] = src.descLen[from];
+        ids[to] = src.ids[from];
+        done.set(to, src.done.get(from));
+        nonAscii.set(to, src.nonAscii.get(from));
+    }
+
+    private void grow() {
+        int cap = (int) Math.min(MAX_ARRAY, types.length + (long) (types.length >> 1) + 1);
+        if (cap <= size) {
+            throw new OutOfMemoryError("Task list is full");
+        }
+        types = Arrays.copyOf(types, cap);
+        repeats = Arrays.copyOf(repeats, cap);
+        day1 = Arrays.copyOf(day1, cap);
+        day2 = Arrays.copyOf(day2, cap);
+        doneDay = Arrays.copyOf(doneDay, cap);
+        descStart = Arrays.copyOf(descStart, cap);
+        descLen = Arrays.copyOf(descLen, cap);
+        ids = Arrays.copyOf(ids, cap);
+    }
+
+    private void growPool(int extra) {
+        long need = (long) poolUsed + extra;
+        if (need > MAX_ARRAY) {
+            throw new OutOfMemoryError("Description pool is full");
+        }
+        int cap = (int) Math.min(MAX_ARRAY, Math.max(need, pool.length + (long) (pool.length >> 1)));
+        pool = Arrays.copyOf(pool, cap);
+    }
+
+    /** Copies live descriptions into a fresh pool, so snapshots sharing the old one stay valid. */
+    private void compactPool() {
+        byte[] fresh = new byte[Math.max(16, (poolUsed - poolGarbage) * 3 / 2)];
+        int at = 0;
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(pool, descStart[i], fresh, at, descLen[i]);
+            descStart[i] = at;
+            at += descLen[i];
+        }
+        pool = fresh;
+        poolUsed = at;
+        poolGarbage = 0;
+    }
+
+    /** Drops bit {@code at} from {@code bits[0, end)} and moves the bits after it down by one. */
+    private static void shiftDown(BitSet bits, int at, int end) {
+        BitSet tail = bits.get(at + 1, end);
+        bits.clear(at, end);
+        for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+            bits.set(at + i);
+        }
+    }
+}
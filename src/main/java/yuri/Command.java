@@ -0,0 +1,92 @@
+package yuri;
+
+/**
+ * Command words understood by {@link Yuri#getResponse(String)}.
+ * Lookup goes through a table bucketed by first letter and compares the input in place,
+ * so recognising a command never lowercases or copies the input.
+ */
+enum Command {
+    LIST("list", true),
+    BYE("bye", true),
+    HELP("help", true),
+    FIND("find", true),
+    DUE("due", true),
+    OVERDUE("overdue", true),
+    STATS("stats", true),
+    LISTS("lists", true),
+    EXPORT("export", true),
+    MARK("mark", false),
+    UNMARK("unmark", false),
+    DELETE("delete", false),
+    TODO("todo", false),
+    DEADLINE("deadline", false),
+    EVENT("event", false),
+    UNDO("undo", false),
+    REDO("redo", false),
+    USE("use", false),
+    UNKNOWN("", false);
+
+    private static final Command[][] BY_FIRST_LETTER = new Command[26][];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            int n = 0;
+            for (Command cmd : values()) {
+                if (!cmd.word.isEmpty() && cmd.word.charAt(0) == c) {
+                    n++;
+                }
+            }
+            Command[] bucket = new Command[n];
+            n = 0;
+            for (Command cmd : values()) {
+                if (!cmd.word.isEmpty() && cmd.word.charAt(0) == c) {
+                    bucket[n++] = cmd;
+                }
+            }
+            BY_FIRST_LETTER[c - 'a'] = bucket;
+        }
+    }
+
+    private final String word;
+    private final boolean isReadOnly;
+
+    Command(String word, boolean isReadOnly) {
+        this.word = word;
+        this.isReadOnly = isReadOnly;
+    }
+
+    /** Returns the command word as typed by users, e.g. {@code "deadline"}. */
+    String word() {
+        return word;
+    }
+
+    /** Returns whether the command leaves the task list unchanged. */
+    boolean isReadOnly() {
+        return isReadOnly;
+    }
+
+    /**
+     * Finds the command whose word equals {@code s[from, to)}, ignoring case.
+     *
+     * @param s    input line
+     * @param from start of the command word
+     * @param to   end of the command word (exclusive)
+     * @return the matching command, or {@link #UNKNOWN}
+     */
+    static Command lookup(String s, int from, int to) {
+        if (from >= to) {
+            return UNKNOWN;
+        }
+        char first = Character.toLowerCase(s.charAt(from));
+        if (first < 'a' || first > 'z') {
+            return UNKNOWN;
+        }
+        int len = to - from;
+        for (Command cmd : BY_FIRST_LETTER[first - 'a']) {
+            if (cmd.word.length() == len && s.regionMatches(true, from, cmd.word, 0, len)) {
+                return cmd;
+            }
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,238 @@
+package yuri;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Line-oriented command server on the loopback interface, so several local tools can drive one
+ * {@link Yuri} instance instead of racing on the save file.
+ *
+ * <p>Each line sent is one command; the reply is written back followed by an empty line.
+ * {@code bye} closes the connection. Read-only {@link Command}s run on the connection's own
+ * thread under a shared read lock; every other command is handed to a single writer thread, so
+ * mutations of the task list and its journal happen one at a time and in arrival order.
+ * Every connection works on the same list, so {@code use} is refused.</p>
+ */
+public class CommandServer {
+
+    /** Port used when none is given on the command line. */
+    public static final int DEFAULT_PORT = 7788;
+
+    /** Reply to {@code use}, which would switch the list for every connection at once. */
+    static final String USE_REJECTED = "OOPS!!! 'use' is not available over the server: "
+            + "all connections share one list. Run one server per list instead.";
+
+    /** How long {@link #stop()} waits for queued writes before closing the save file. */
+    static final long DRAIN_SECONDS = 10;
+
+    private final Yuri yuri;
+    private final Parser parser = new Parser();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> new Thread(r, "yuri-writer"));
+    private final ExecutorService connections = newConnectionExecutor();
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+
+    /**
+     * Creates a server that routes commands into the given instance.
+     *
+     * @param yuri backend that executes commands
+     */
+    public CommandServer(Yuri yuri) {
+        assert yuri != null : "yuri must not be null";
+        this.yuri = yuri;
+    }
+
+    /**
+     * Binds to the loopback interface and starts accepting connections in the background.
+     *
+     * @param port port to listen on, or 0 for any free port
+     * @return the port actually bound
+     * @throws IOException if the socket cannot be bound
+     */
+    public int start(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::acceptLoop, "yuri-acceptor");
+        acceptor.start();
+        return serverSocket.getLocalPort();
+    }
+
+    /** Blocks until the server has been stopped. */
+    public void awaitStop() throws InterruptedException {
+        acceptor.join();
+    }
+
+    /**
+     * Stops accepting connections, drains the writer and releases the save file.
+     * Commands already handed to the writer finish first, for at most {@value #DRAIN_SECONDS}
+     * seconds, and in-flight reads are waited out, so nothing touches the tasks once they close.
+     */
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // already closed
+        }
+        connections.shutdownNow();
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(DRAIN_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Writer did not finish within " + DRAIN_SECONDS + " s; closing anyway.");
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        lock.writeLock().lock();
+        try {
+            yuri.shutdown();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Executes one command with the server's concurrency rules.
+     *
+     * @param line raw command line
+     * @return the reply text
+     */
+    String execute(String line) {
+        Command cmd = parser.commandOf(line.trim());
+        if (cmd == Command.USE) {
+            // the selected list belongs to the shared Yuri, so one client would move every other
+            return USE_REJECTED;
+        }
+        // Applying an outside change to the save file mutates the tasks, so it goes to the writer.
+        if (cmd.isReadOnly() && !yuri.hasExternalChange()) {
+            lock.readLock().lock();
+            try {
+                return yuri.getResponse(line, false);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        try {
+            return writer.submit(() -> {
+                lock.writeLock().lock();
+                try {
+                    return yuri.getResponse(line);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "OOPS!!! Server is shutting down.";
+        } catch (RejectedExecutionException e) {
+            return "OOPS!!! Server is shutting down.";
+        } catch (ExecutionException e) {
+            return "OOPS!!! " + e.getCause().getMessage();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("Accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        String peer = String.valueOf(socket.getRemoteSocketAddress());
+        long start = System.nanoTime();
+        int commands = 0;
+        try (socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String reply = execute(line);
+                out.write(reply);
+                out.write(reply.isEmpty() ? "\n" : "\n\n");
+                commands++;
+                // Only flush when the client has nothing more queued, so pipelined scripts batch up.
+                if (!in.ready()) {
+                    out.flush();
+                }
+                if (line.trim().equalsIgnoreCase("bye")) {
+                    break;
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            // client went away; fall through to the summary
+        }
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000L);
+        System.err.printf("Connection %s closed: %d commands in %d ms (%d commands/s)%n",
+                peer, commands, elapsedMs, commands * 1000L / elapsedMs);
+    }
+
+    /**
+     * Returns a virtual-thread-per-task executor when the runtime has one (Java 21+),
+     * otherwise a cached pool of platform threads, which gives the same one-thread-per-connection
+     * model on Java 17.
+     */
+    private static ExecutorService newConnectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "yuri-connection");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Starts a server on {@code --port <n>} (default {@value #DEFAULT_PORT}) and runs until killed.
+     *
+     * @param args command-line arguments
+     */
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals("--port")) {
+                port = Integer.parseInt(args[i + 1]);
+            }
+        }
+        CommandServer server = new CommandServer(new Yuri());
+        try {
+            int bound = server.start(port);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            System.err.println("Yuri server listening on " + InetAddress.getLoopbackAddress().getHostAddress()
+                    + ":" + bound);
+            server.awaitStop();
+        } catch (IOException e) {
+            System.err.println("Could not start server: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
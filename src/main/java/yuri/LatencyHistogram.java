@@ -0,0 +1,94 @@
+package yuri;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free histogram of durations in nanoseconds.
+ * Buckets are powers of two split into 8 linear sub-buckets, so any recorded value is reported
+ * within 12.5% of its true value while the whole histogram stays a single 496-slot array.
+ * Recording is one bucket computation and three atomic updates.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos elapsed time in nanoseconds; negative values are recorded as 0
+     */
+    void record(long nanos) {
+        long v = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(v));
+        count.incrementAndGet();
+        totalNanos.addAndGet(v);
+        if (v > maxNanos.get()) {
+            maxNanos.accumulateAndGet(v, Math::max);
+        }
+    }
+
+    /** Returns the number of recorded durations. */
+    long count() {
+        return count.get();
+    }
+
+    /** Returns the sum of all recorded durations in nanoseconds. */
+    long totalNanos() {
+        return totalNanos.get();
+    }
+
+    /** Returns the largest recorded duration in nanoseconds. */
+    long maxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Returns an upper bound for the given percentile of recorded durations.
+     *
+     * @param percentile percentile between 0 and 100
+     * @return the upper edge of the bucket holding that percentile, in nanoseconds, or 0 if empty
+     */
+    long percentileNanos(double percentile) {
+        assert percentile >= 0 && percentile <= 100 : "percentile must be between 0 and 100";
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(n * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    static int bucketOf(long v) {
+        if (v < SUB_COUNT) {
+            return (int) v;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exp - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int exp = bucket / SUB_COUNT + SUB_BITS - 1;
+        int sub = bucket % SUB_COUNT;
+        long width = 1L << (exp - SUB_BITS);
+        return ((long) (SUB_COUNT + sub) << (exp - SUB_BITS)) + width - 1;
+    }
+}
@@ -1,15 +1,52 @@
 package yuri;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 /**
  * Entry point that launches JavaFX without tripping up classloader/module issues.
+ * The console paths never touch a JavaFX class, so they start without loading the toolkit.
  */
 public class Launcher {
+
+    /** File type bits of a {@code unix:mode} attribute, and the types that mean "redirected". */
+    private static final int S_IFMT = 0170000;
+    private static final int S_IFIFO = 0010000;
+    private static final int S_IFREG = 0100000;
+
     /**
-     * Starts the JavaFX application.
+     * Starts the JavaFX application, runs a command file when given {@code --batch <file>},
+     * or serves commands over a local socket when given {@code --server}.
+     * With {@code --cli}, or when stdin is a pipe or a file, commands are read from the console
+     * instead of opening a window; {@code --gui} opens the window regardless.
      *
      * @param args CLI args
      */
     public static void main(String[] args) {
+        java.util.List<String> flags = java.util.Arrays.asList(args);
+        if (flags.contains("--server")) {
+            CommandServer.main(args);
+            return;
+        }
+        if (flags.contains("--batch") || flags.contains("--cli")
+                || (!flags.contains("--gui") && isStdinRedirected())) {
+            Yuri.main(args);
+            return;
+        }
         yuri.gui.Main.main(args);
     }
+
+    /**
+     * Returns whether stdin is a pipe or a regular file rather than a terminal or {@code /dev/null}.
+     * Only answerable where the {@code unix} attribute view exists; elsewhere this returns false.
+     */
+    static boolean isStdinRedirected() {
+        try {
+            int type = (Integer) Files.getAttribute(Path.of("/dev/stdin"), "unix:mode") & S_IFMT;
+            return type == S_IFIFO || type == S_IFREG;
+        } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+            return false;
+        }
+    }
 }
@@ -0,0 +1,231 @@
+package yuri;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Tasks of a text save file that are parsed only when first read.
+ * Loading just records where each well-formed line starts and ends; {@link #get(int)} parses a
+ * line the first time it is asked for and keeps the task, so startup does not pay for building
+ * task objects nobody looks at. Tasks added or set later are held as they are.
+ *
+ * <p>Reads may run concurrently with each other, e.g. parallel rendering or read-locked server
+ * commands; each line is parsed into exactly one task, which is safely published to every reader.
+ * Structural changes need external synchronization, as with {@link java.util.ArrayList}.</p>
+ */
+final class LazyTaskList extends AbstractList<Yuri.Task> implements RandomAccess {
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Yuri.Task[].class);
+
+    private final byte[] data;
+    /** Offsets of each line in {@code data}; only meaningful while the slot in {@code tasks} is empty. */
+    private int[] starts;
+    private int[] ends;
+    private Yuri.Task[] tasks;
+    private int size;
+
+    /**
+     * Wraps {@code size} lines of {@code data}, each given by its start and end offsets.
+     * Every line must parse into a task.
+     */
+    LazyTaskList(byte[] data, int[] starts, int[] ends, int size) {
+        this(data, starts, ends, new Yuri.Task[Math.max(16, size)], size);
+    }
+
+    private LazyTaskList(byte[] data, int[] starts, int[] ends, Yuri.Task[] tasks, int size) {
+        assert size <= starts.length && size <= ends.length && size <= tasks.length : "Too few offsets";
+        this.data = data;
+        this.starts = Arrays.copyOf(starts, tasks.length);
+        this.ends = Arrays.copyOf(ends, tasks.length);
+        this.tasks = tasks;
+        this.size = size;
+    }
+
+    @Override
+    public Yuri.Task get(int index) {
+        Objects.checkIndex(index, size);
+        Yuri.Task t = (Yuri.Task) SLOTS.getAcquire(tasks, index);
+        if (t != null) {
+            return t;
+        }
+        t = SaveFileLoader.parseLine(data, starts[index], ends[index]);
+        assert t != null : "Indexed lines must be well-formed";
+        Yuri.Task winner = (Yuri.Task) SLOTS.compareAndExchange(tasks, index, null, t);
+        return winner == null ? t : winner;
+    }
+
+    @Override
+    public Yuri.Task set(int index, Yuri.Task t) {
+        Yuri.Task old = get(index);
+        SLOTS.setRelease(tasks, index, t);
+        return old;
+    }
+
+    @Override
+    public void add(int index, Yuri.Task t) {
+        assert t != null : "Task must not be null";
+        Objects.checkIndex(index, size + 1);
+        if (size == tasks.length) {
+            grow();
+        }
+        System.arraycopy(tasks, index, tasks, index + 1, size - index);
+        System.arraycopy(starts, index, starts, index + 1, size - index);
+        System.arraycopy(ends, index, ends, index + 1, size - index);
+        tasks[index] = t;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Yuri.Task remove(int index) {
+        Yuri.Task old = get(index);
+        removeRange(index, index + 1);
+        return old;
+    }
+
+    @Override
+    protected void removeRange(int from, int to) {
+        int tail = size - to;
+        System.arraycopy(tasks, to, tasks, from, tail);
+        System.arraycopy(starts, to, starts, from, tail);
+        System.arraycopy(ends, to, ends, from, tail);
+        Arrays.fill(tasks, from + tail, size, null);
+        size -= to - from;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Passes the ID and date of each pending deadline and event to {@code sink}, see
+     * {@link TaskStore#forEachPendingDate}. Lines not parsed yet are read in place and stay unparsed.
+     */
+    void forEachPendingDate(TaskStore.DateSink sink) {
+        int[] fields = SaveFileLoader.newFields();
+        for (int i = 0; i < size; i++) {
+            Yuri.Task t = (Yuri.Task) SLOTS.getAcquire(tasks, i);
+            if (t == null) {
+                SaveFileLoader.pendingDate(data, starts[i], ends[i], fields, sink);
+            } else {
+                TaskList.pendingDate(t, sink);
+            }
+        }
+    }
+
+    /** Returns whether the task at {@code index} has been built, by a read or by being set. */
+    boolean isParsed(int index) {
+        Objects.checkIndex(index, size);
+        return SLOTS.getAcquire(tasks, index) != null;
+    }
+
+    /**
+     * Returns an independent copy that shares the file contents and any tasks parsed so far;
+     * lines still unparsed are parsed separately by each copy.
+     */
+    LazyTaskList copy() {
+        return new LazyTaskList(data, starts, ends, Arrays.copyOf(tasks, Math.max(16, size)), size);
+    }
+
+    /**
+     * Removes the given positions from {@code tasks} in one pass, without parsing the tasks
+     * that stay when {@code tasks} is a {@code LazyTaskList}.
+     *
+     * @param tasks     list to remove from
+     * @param positions ascending, distinct zero-based positions
+     */
+    static void removePositions(List<Yuri.Task> tasks, int[] positions) {
+        if (tasks instanceof LazyTaskList) {
+            ((LazyTaskList) tasks).removePositions(positions);
+            return;
+        }
+        int w = positions.length == 0 ? tasks.size() : positions[0];
+        int k = 0;
+        for (int i = w; i < tasks.size(); i++) {
+            if (k < positions.length && positions[k] == i) {
+                k++;
+            } else {
+                tasks.set(w++, tasks.get(i));
+            }
+        }
+        tasks.subList(w, tasks.size()).clear();
+    }
+
+    /**
+     * Inserts tasks so that each ends up at the matching position, shifting the others up in one
+     * pass from the back, without parsing the tasks that move when {@code tasks} is a
+     * {@code LazyTaskList}.
+     *
+     * @param tasks     list to insert into
+     * @param positions ascending, distinct zero-based positions in the resulting list
+     * @param inserted  tasks to insert, one per position
+     */
+    static void insertPositions(List<Yuri.Task> tasks, int[] positions, List<Yuri.Task> inserted) {
+        assert positions.length == inserted.size() : "One position per inserted task";
+        if (tasks instanceof LazyTaskList) {
+            ((LazyTaskList) tasks).insertPositions(positions, inserted);
+            return;
+        }
+        if (positions.length == 1) {
+            tasks.add(positions[0], inserted.get(0));
+            return;
+        }
+        int src = tasks.size() - 1;
+        tasks.addAll(inserted);
+        for (int i = tasks.size() - 1, k = positions.length - 1; k >= 0; i--) {
+            tasks.set(i, positions[k] == i ? inserted.get(k--) : tasks.get(src--));
+        }
+    }
+
+    private void insertPositions(int[] positions, List<Yuri.Task> inserted) {
+        int total = size + positions.length;
+        while (total > tasks.length) {
+            grow();
+        }
+        int src = size - 1;
+        for (int i = total - 1, k = positions.length - 1; k >= 0; i--) {
+            if (positions[k] == i) {
+                tasks[i] = inserted.get(k--);
+            } else {
+                tasks[i] = tasks[src];
+                starts[i] = starts[src];
+                ends[i] = ends[src];
+                src--;
+            }
+        }
+        size = total;
+        modCount++;
+    }
+
+    private void removePositions(int[] positions) {
+        int w = positions.length == 0 ? size : positions[0];
+        int k = 0;
+        for (int i = w; i < size; i++) {
+            if (k < positions.length && positions[k] == i) {
+                k++;
+            } else {
+                tasks[w] = tasks[i];
+                starts[w] = starts[i];
+                ends[w] = ends[i];
+                w++;
+            }
+        }
+        Arrays.fill(tasks, w, size, null);
+        size = w;
+        modCount++;
+    }
+
+    private void grow() {
+        int capacity = tasks.length * 2;
+        tasks = Arrays.copyOf(tasks, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+    }
+}
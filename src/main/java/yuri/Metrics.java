@@ -0,0 +1,160 @@
+package yuri;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Runtime measurements of one {@link Yuri} instance: a latency histogram per command type,
+ * persistence and load timings, bytes written, and the current task count.
+ * Shown by the {@code stats} command and, once {@link #register()}ed, over JMX.
+ * All recording methods are lock-free and safe to call from any thread.
+ */
+public class Metrics implements MetricsMBean {
+
+    /** Name under which {@link #register()} publishes this instance. */
+    public static final String OBJECT_NAME = "yuri:type=Metrics";
+
+    private static final Command[] COMMANDS = Command.values();
+
+    private final LatencyHistogram[] byCommand = new LatencyHistogram[COMMANDS.length];
+    private final LatencyHistogram persist = new LatencyHistogram();
+    private final LatencyHistogram snapshots = new LatencyHistogram();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private volatile long lastLoadNanos;
+    private volatile IntSupplier taskCount = () -> 0;
+
+    /**
+     * Creates an empty set of measurements.
+     */
+    public Metrics() {
+        for (int i = 0; i < byCommand.length; i++) {
+            byCommand[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Publishes this instance on the platform MBean server, replacing any earlier one.
+     * Failures are reported on stderr; the app works the same without JMX.
+     */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            System.err.println("Could not register metrics MBean: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Calls {@link #register()} on a background daemon thread, so that loading the JMX classes
+     * does not delay the first prompt.
+     */
+    public void registerInBackground() {
+        Thread t = new Thread(this::register, "yuri-jmx");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    void recordCommand(Command cmd, long nanos) {
+        byCommand[cmd.ordinal()].record(nanos);
+    }
+
+    void recordPersist(long nanos) {
+        persist.record(nanos);
+    }
+
+    void recordSnapshot(long nanos, long bytes) {
+        snapshots.record(nanos);
+        bytesWritten.addAndGet(bytes);
+    }
+
+    void recordLoad(long nanos) {
+        lastLoadNanos = nanos;
+    }
+
+    void addBytesWritten(long bytes) {
+        bytesWritten.addAndGet(bytes);
+    }
+
+    void setTaskCount(IntSupplier taskCount) {
+        assert taskCount != null : "taskCount must not be null";
+        this.taskCount = taskCount;
+    }
+
+    @Override
+    public int getTaskCount() {
+        return taskCount.getAsInt();
+    }
+
+    @Override
+    public long getCommandCount() {
+        long n = 0;
+        for (LatencyHistogram h : byCommand) {
+            n += h.count();
+        }
+        return n;
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    @Override
+    public double getLastLoadMillis() {
+        return lastLoadNanos / 1e6;
+    }
+
+    @Override
+    public long getSnapshotCount() {
+        return snapshots.count();
+    }
+
+    @Override
+    public double getPersistP99Micros() {
+        return persist.percentileNanos(99) / 1e3;
+    }
+
+    @Override
+    public double commandP99Micros(String command) {
+        for (Command cmd : COMMANDS) {
+            if (cmd != Command.UNKNOWN && cmd.word().equalsIgnoreCase(command)) {
+                return byCommand[cmd.ordinal()].percentileNanos(99) / 1e3;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Tasks: %d\n", getTaskCount()));
+        sb.append("Command latency in microseconds:\n");
+        sb.append(String.format("  %-10s %8s %9s %9s %9s %9s", "command", "count", "p50", "p90", "p99", "max"));
+        for (Command cmd : COMMANDS) {
+            LatencyHistogram h = byCommand[cmd.ordinal()];
+            if (h.count() > 0) {
+                sb.append(String.format("\n  %-10s %8d %9.1f %9.1f %9.1f %9.1f",
+                        cmd == Command.UNKNOWN ? "(unknown)" : cmd.word(), h.count(),
+                        h.percentileNanos(50) / 1e3, h.percentileNanos(90) / 1e3,
+                        h.percentileNanos(99) / 1e3, h.maxNanos() / 1e3));
+            }
+        }
+        sb.append(String.format("\nPersist: %d changes, p50 %.1f us, p99 %.1f us, max %.1f us",
+                persist.count(), persist.percentileNanos(50) / 1e3, persist.percentileNanos(99) / 1e3,
+                persist.maxNanos() / 1e3));
+        sb.append(String.format("\nSnapshots: %d written, p50 %.1f ms, max %.1f ms",
+                snapshots.count(), snapshots.percentileNanos(50) / 1e6, snapshots.maxNanos() / 1e6));
+        sb.append(String.format("\nLast load: %.1f ms", getLastLoadMillis()));
+        sb.append(String.format("\nBytes written: %d", getBytesWritten()));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,36 @@
+package yuri;
+
+/**
+ * JMX view of {@link Metrics}, registered as {@value Metrics#OBJECT_NAME}.
+ */
+public interface MetricsMBean {
+
+    /** Returns the number of tasks currently in the list. */
+    int getTaskCount();
+
+    /** Returns the number of commands handled so far. */
+    long getCommandCount();
+
+    /** Returns the number of bytes written to the save file and its journal. */
+    long getBytesWritten();
+
+    /** Returns how long the last load from disk took, in milliseconds. */
+    double getLastLoadMillis();
+
+    /** Returns the number of full snapshots written (saves and compactions). */
+    long getSnapshotCount();
+
+    /** Returns the 99th percentile time to persist one change, in microseconds. */
+    double getPersistP99Micros();
+
+    /**
+     * Returns the 99th percentile latency of one command type, in microseconds.
+     *
+     * @param command command word, e.g. {@code "find"}
+     * @return the latency, or 0 if the command is unknown or has not run yet
+     */
+    double commandP99Micros(String command);
+
+    /** Returns the same report as the {@code stats} command. */
+    String getReport();
+}
@@ -0,0 +1,76 @@
+package yuri;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Splits a range of list positions into contiguous segments, processes them on a fork-join pool
+ * and returns the per-segment results in range order, so callers can merge them without sorting.
+ * Ranges below the cutoff are processed as one segment on the calling thread.
+ *
+ * <p>Segments are forked as {@link RecursiveTask}s, so when called from inside a fork-join pool
+ * the work runs in that pool; otherwise it runs in the common pool.</p>
+ */
+final class ParallelSegments {
+
+    /** Processes positions {@code [from, to)} and returns that segment's result. */
+    @FunctionalInterface
+    interface SegmentFunction<T> {
+        T apply(int from, int to);
+    }
+
+    private ParallelSegments() {
+    }
+
+    /**
+     * Applies {@code fn} to segments covering {@code [0, n)} and returns the results in order.
+     *
+     * @param n      number of positions
+     * @param cutoff smallest range worth splitting; also the smallest segment size
+     * @param fn     work for one segment
+     * @return one result per segment, in position order
+     */
+    static <T> List<T> map(int n, int cutoff, SegmentFunction<T> fn) {
+        assert cutoff > 0 : "cutoff must be positive";
+        if (n < cutoff) {
+            return List.of(fn.apply(0, n));
+        }
+        int parallelism = ForkJoinTask.inForkJoinPool()
+                ? ForkJoinTask.getPool().getParallelism()
+                : ForkJoinPool.getCommonPoolParallelism();
+        // a few segments per worker so an unlucky slow segment does not hold up the merge
+        int segmentSize = Math.max(cutoff, (n + parallelism * 4 - 1) / (parallelism * 4));
+        List<Segment<T>> segments = new ArrayList<>();
+        for (int from = 0; from < n; from += segmentSize) {
+            segments.add(new Segment<>(fn, from, Math.min(n, from + segmentSize)));
+        }
+        ForkJoinTask.invokeAll(segments);
+        List<T> results = new ArrayList<>(segments.size());
+        for (Segment<T> s : segments) {
+            results.add(s.join());
+        }
+        return results;
+    }
+
+    private static final class Segment<T> extends RecursiveTask<T> {
+        private static final long serialVersionUID = 1L;
+
+        private final SegmentFunction<T> fn;
+        private final int from;
+        private final int to;
+
+        Segment(SegmentFunction<T> fn, int from, int to) {
+            this.fn = fn;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected T compute() {
+            return fn.apply(from, to);
+        }
+    }
+}
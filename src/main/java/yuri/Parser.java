@@ -1,11 +1,19 @@
 package yuri;
 
+import java.util.BitSet;
+import java.util.function.IntUnaryOperator;
+
 /**
  * Utility methods for interpreting raw user input lines.
  * Provides helpers to detect commands, slice arguments, and validate indices.
+ * Scanning helpers compare and parse characters in place, so recognising a command and reading
+ * its index allocate nothing; only arguments that are kept (descriptions, dates) become substrings.
  */
 public class Parser {
 
+    private static final String NO_SUCH_TASK =
+            "That task number doesn't exist yet. Try 'list' to see valid numbers.";
+
     /**
      * Returns true if {@code line} starts with the whole word {@code word} (case-insensitive).
      * Accepts either an exact match or a leading word followed by a space.
@@ -16,11 +24,52 @@ public class Parser {
      */
     public boolean startsWithWord(String line, String word) {
         assert line != null && word != null : "Null inputs to startsWithWord";
-        String lw = line.toLowerCase();
-        String ww = word.toLowerCase();
-        boolean result = lw.equals(ww) || lw.startsWith(ww + " ");
-        assert (result || !lw.startsWith(word)) || lw.startsWith(ww) : "Case-insensitive check should align";
-        return result;
+        int n = word.length();
+        if (!line.regionMatches(true, 0, word, 0, n)) {
+            return false;
+        }
+        return line.length() == n || line.charAt(n) == ' ';
+    }
+
+    /**
+     * Returns the end (exclusive) of the word starting at {@code from}, i.e. the index of the next
+     * whitespace character or the end of the line.
+     *
+     * @param line text to scan
+     * @param from index of the first character of the word
+     * @return index just past the word
+     */
+    public int wordEnd(String line, int from) {
+        int i = from;
+        while (i < line.length() && !Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the index of the first non-whitespace character at or after {@code from}.
+     *
+     * @param line text to scan
+     * @param from index to start at
+     * @return index of the next non-whitespace character, or the line length
+     */
+    public int skipSpaces(String line, int from) {
+        int i = from;
+        while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the command named by the first word of {@code line}.
+     *
+     * @param line trimmed user input
+     * @return the command, or {@link Command#UNKNOWN}
+     */
+    Command commandOf(String line) {
+        return Command.lookup(line, 0, wordEnd(line, 0));
     }
 
     /**
@@ -65,7 +114,7 @@ public class Parser {
     }
 
     /**
-     * Finds {@code token} in {@code s} case-insensitively; tolerates a leading space before token.
+     * Finds {@code token} in {@code s} case-insensitively, comparing in place.
      *
      * @param s     the string to search
      * @param token the token
@@ -73,26 +122,19 @@ public class Parser {
      */
     public int indexOfToken(String s, String token) {
         assert s != null && token != null : "Null inputs to indexOfToken";
-        String low = s.toLowerCase();
-        String t = token.toLowerCase();
-
-        int i = low.indexOf(t);
-        if (i >= 0) {
-            assert s.regionMatches(true, i, token, 0, token.length()) : "Case-insensitive match must align";
-            return i;
-        }
-        i = low.indexOf(" " + t);
-        if (i >= 0) {
-            int j = i + 1;
-            assert s.regionMatches(true, j, token, 0, token.length()) : "Case-insensitive match must align (spaced)";
-            return j;
+        int n = token.length();
+        for (int i = 0; i + n <= s.length(); i++) {
+            if (s.regionMatches(true, i, token, 0, n)) {
+                return i;
+            }
         }
         return -1;
     }
 
     /**
      * Parses and returns a 1-based index from a command of the form {@code "<cmd> <number>"}.
-     * Must have exactly one numeric argument.
+     * Must have exactly one numeric argument. The digits are read in place, without splitting
+     * the line or creating substrings.
      *
      * @param line the full command line
      * @param cmd  the command word (used only for error messages)
@@ -102,20 +144,163 @@ public class Parser {
     public int parseIndexOrThrow(String line, String cmd) throws Yuri.YuriException {
         assert line != null && cmd != null : "Null inputs to parseIndexOrThrow";
 
-        String[] parts = line.split("\\s+");
-        if (parts.length != 2) {
+        int argStart = skipSpaces(line, wordEnd(line, skipSpaces(line, 0)));
+        int argEnd = wordEnd(line, argStart);
+        if (argStart == argEnd || skipSpaces(line, argEnd) != line.length()) {
             throw new Yuri.YuriException("Use: '" + cmd + " <number>' with exactly one number.");
         }
 
-        try {
-            int idx = Integer.parseInt(parts[1]);
-            assert idx > 0 : "Parsed index must be positive";
-            if (idx <= 0) {
-                throw new NumberFormatException();
-            }
-            return idx;
-        } catch (NumberFormatException e) {
+        int idx = parsePositiveInt(line, argStart, argEnd);
+        if (idx <= 0) {
             throw new Yuri.YuriException("Index must be a positive number. Example: '" + cmd + " 2'.");
         }
+        assert idx > 0 : "Parsed index must be positive";
+        return idx;
+    }
+
+    /**
+     * Parses the task numbers of a bulk command such as {@code "mark 1-500"}, {@code "unmark 3,7,9"}
+     * or {@code "delete 2, 5-8"}: a comma-separated list of numbers and {@code <from>-<to>} ranges.
+     *
+     * @param line  the full command line
+     * @param cmd   the command word (used only for error messages)
+     * @param count number of tasks in the list; every number must be between 1 and {@code count}
+     * @return the selected zero-based positions, ascending and without duplicates
+     * @throws yuri.Yuri.YuriException if the format is wrong or a number is out of range
+     */
+    public int[] parsePositionsOrThrow(String line, String cmd, int count) throws Yuri.YuriException {
+        return parsePositionsOrThrow(line, cmd, count, id -> -1);
+    }
+
+    /**
+     * Like {@link #parsePositionsOrThrow(String, String, int)}, but list items may also be stable
+     * task IDs written as {@code #<id>}, e.g. {@code "delete #42"} or {@code "mark 1-3,#17"}.
+     *
+     * @param line       the full command line
+     * @param cmd        the command word (used only for error messages)
+     * @param count      number of tasks in the list
+     * @param positionOf maps a task ID to its zero-based position, or -1 if there is no such task
+     * @return the selected zero-based positions, ascending and without duplicates
+     * @throws yuri.Yuri.YuriException if the format is wrong, a number is out of range or an ID is unknown
+     */
+    public int[] parsePositionsOrThrow(String line, String cmd, int count, IntUnaryOperator positionOf)
+            throws Yuri.YuriException {
+        assert line != null && cmd != null && positionOf != null : "Null inputs to parsePositionsOrThrow";
+
+        int argStart = skipSpaces(line, wordEnd(line, skipSpaces(line, 0)));
+        if (argStart == line.length()) {
+            throw new Yuri.YuriException(usage(cmd));
+        }
+        int argEnd = wordEnd(line, argStart);
+        if (skipSpaces(line, argEnd) == line.length() && line.indexOf(',', argStart) < 0) {
+            // one plain number, the common case: no set to build
+            int idx = parsePositiveInt(line, argStart, argEnd);
+            if (idx > 0) {
+                if (idx > count) {
+                    throw new Yuri.YuriException(NO_SUCH_TASK);
+                }
+                return new int[] {idx - 1};
+            }
+        }
+        BitSet selected = new BitSet();
+        int itemStart = argStart;
+        while (itemStart <= line.length()) {
+            int itemEnd = line.indexOf(',', itemStart);
+            if (itemEnd < 0) {
+                itemEnd = line.length();
+            }
+            int from = skipSpaces(line, itemStart);
+            int to = itemEnd;
+            while (to > from && Character.isWhitespace(line.charAt(to - 1))) {
+                to--;
+            }
+            if (from < to && line.charAt(from) == '#') {
+                int id = parsePositiveInt(line, from + 1, to);
+                if (id <= 0) {
+                    throw new Yuri.YuriException(usage(cmd));
+                }
+                int pos = positionOf.applyAsInt(id);
+                if (pos < 0) {
+                    throw new Yuri.YuriException("There is no task with ID #" + id + ".");
+                }
+                selected.set(pos);
+                itemStart = itemEnd + 1;
+                continue;
+            }
+            int dash = line.indexOf('-', from + 1);
+            boolean isRange = dash > 0 && dash < to;
+            int first = parsePositiveInt(line, from, isRange ? dash : to);
+            int last = isRange ? parsePositiveInt(line, dash + 1, to) : first;
+            if (first < 0 || last < 0 || from == to) {
+                throw new Yuri.YuriException(usage(cmd));
+            }
+            if (first == 0 || last == 0) {
+                throw new Yuri.YuriException("Index must be a positive number. Example: '" + cmd + " 2'.");
+            }
+            if (first > last) {
+                throw new Yuri.YuriException("A range must go from low to high. Example: '" + cmd + " 1-5'.");
+            }
+            if (last > count) {
+                throw new Yuri.YuriException(NO_SUCH_TASK);
+            }
+            selected.set(first - 1, last);
+            itemStart = itemEnd + 1;
+        }
+        int[] positions = new int[selected.cardinality()];
+        for (int i = 0, pos = selected.nextSetBit(0); pos >= 0; pos = selected.nextSetBit(pos + 1)) {
+            positions[i++] = pos;
+        }
+        return positions;
+    }
+
+    /**
+     * Returns true if the only argument after the command word is {@code word} (case-insensitive),
+     * e.g. {@code "delete done"} for {@code "done"}. Compares in place.
+     *
+     * @param line full user input
+     * @param word expected argument
+     * @return true if the line is the command word followed by exactly {@code word}
+     */
+    public boolean isArgument(String line, String word) {
+        assert line != null && word != null : "Null inputs to isArgument";
+        int argStart = skipSpaces(line, wordEnd(line, skipSpaces(line, 0)));
+        int argEnd = wordEnd(line, argStart);
+        return argEnd - argStart == word.length()
+                && line.regionMatches(true, argStart, word, 0, word.length())
+                && skipSpaces(line, argEnd) == line.length();
+    }
+
+    private static String usage(String cmd) {
+        return "Use: '" + cmd + " <number>', '" + cmd + " <from>-<to>' or '" + cmd + " <n>,<n>,...'.";
+    }
+
+    /**
+     * Parses {@code s[from, to)} as a decimal integer with an optional sign.
+     *
+     * @return the value if it is a positive int, otherwise -1
+     */
+    private static int parsePositiveInt(String s, int from, int to) {
+        int i = from;
+        if (i < to && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+            if (s.charAt(i) == '-') {
+                return -1;
+            }
+            i++;
+        }
+        if (i == to) {
+            return -1;
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+            if (value > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return (int) value;
     }
 }
@@ -0,0 +1,140 @@
+package yuri;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * How often a recurring deadline or event repeats.
+ * A recurring task is stored once, as a rule: its first date (the anchor) and a recurrence.
+ * Occurrence {@code k} falls {@code k} periods after the anchor, and the methods here find the
+ * occurrence next to a given day in O(1), so nothing ever expands the series into one task per
+ * occurrence. Monthly occurrences keep the anchor's day of month where the month has it and fall
+ * on the month's last day otherwise, e.g. Jan 31, Feb 29, Mar 31.
+ * Occurrences are completed in order, so a rule also records the last occurrence marked done and
+ * every later one is still open.
+ */
+enum Recurrence {
+    DAY("day"),
+    WEEK("week"),
+    MONTH("month");
+
+    private final String word;
+
+    Recurrence(String word) {
+        this.word = word;
+    }
+
+    /** Returns the word used in commands and in the save file, e.g. {@code "week"}. */
+    String word() {
+        return word;
+    }
+
+    /**
+     * Returns the recurrence named by a word such as {@code "week"}, ignoring case.
+     *
+     * @param word text after {@code /every}
+     * @return the recurrence, or {@code null} if the word names none
+     */
+    static Recurrence fromWord(String word) {
+        for (Recurrence r : values()) {
+            if (r.word.equalsIgnoreCase(word)) {
+                return r;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns occurrence {@code k} of a series.
+     *
+     * @param anchor first occurrence
+     * @param k      number of periods after the anchor, at least 0
+     * @return the date of that occurrence
+     */
+    LocalDate nth(LocalDate anchor, long k) {
+        assert k >= 0 : "k must not be negative";
+        switch (this) {
+            case DAY:
+                return anchor.plusDays(k);
+            case WEEK:
+                return anchor.plusWeeks(k);
+            default:
+                // from the anchor each time, so a short month does not shift later ones
+                return anchor.plusMonths(k);
+        }
+    }
+
+    /**
+     * Returns the first occurrence on or after the given day.
+     *
+     * @param anchor first occurrence
+     * @param day    earliest date of interest
+     * @return the anchor if it is not before {@code day}, else the next occurrence
+     */
+    LocalDate nextOnOrAfter(LocalDate anchor, LocalDate day) {
+        if (!anchor.isBefore(day)) {
+            return anchor;
+        }
+        long k = periodsBetween(anchor, day);
+        LocalDate at = nth(anchor, k);
+        while (at.isBefore(day)) {
+            at = nth(anchor, ++k);
+        }
+        return at;
+    }
+
+    /**
+     * Returns the first occurrence on or after the given day that is not done yet.
+     *
+     * @param anchor      first occurrence
+     * @param doneThrough last occurrence marked done, or {@code null} if none is
+     * @param day         earliest date of interest
+     * @return the first open occurrence from {@code day} on
+     */
+    LocalDate nextOpen(LocalDate anchor, LocalDate doneThrough, LocalDate day) {
+        boolean isDoneOnDay = doneThrough != null && !day.isAfter(doneThrough);
+        return nextOnOrAfter(anchor, isDoneOnDay ? doneThrough.plusDays(1) : day);
+    }
+
+    /**
+     * Returns the last occurrence strictly before the given day.
+     *
+     * @param anchor first occurrence
+     * @param day    exclusive upper bound
+     * @return the occurrence, or {@code null} if the anchor is not before {@code day}
+     */
+    LocalDate lastBefore(LocalDate anchor, LocalDate day) {
+        if (!anchor.isBefore(day)) {
+            return null;
+        }
+        long k = periodsBetween(anchor, day);
+        LocalDate at = nth(anchor, k);
+        while (!at.isBefore(day)) {
+            at = nth(anchor, --k);
+        }
+        return at;
+    }
+
+    /**
+     * Returns whether the series has an occurrence on the given day.
+     *
+     * @param anchor first occurrence
+     * @param day    date to check
+     * @return true if some occurrence falls on {@code day}
+     */
+    boolean occursOn(LocalDate anchor, LocalDate day) {
+        return nextOnOrAfter(anchor, day).equals(day);
+    }
+
+    /** Whole periods from {@code anchor} to {@code day}, rounded down; within one of the answer. */
+    private long periodsBetween(LocalDate anchor, LocalDate day) {
+        switch (this) {
+            case DAY:
+                return ChronoUnit.DAYS.between(anchor, day);
+            case WEEK:
+                return ChronoUnit.WEEKS.between(anchor, day);
+            default:
+                return ChronoUnit.MONTHS.between(anchor, day);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package yuri;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Upcoming deadlines and event starts of one list, queued by the day their reminder is due.
+ * A task's reminder is due {@code leadDays} before its deadline or start date, and is handed out
+ * at most once by {@link #takeDue(TaskStore, LocalDate)}, on any day up to the date itself.
+ *
+ * <p>The queue is a map from reminder day to a bucket of task IDs, 4 bytes per task. It is filled
+ * on the first {@code takeDue} from {@link TaskStore#forEachPendingDate}, which reads the dates
+ * of a lazily loaded list without building its tasks, and from then on kept up to date by
+ * {@link #schedule(Yuri.Task)} for tasks that are added, re-inserted or unmarked. Deleting or
+ * marking a task does not touch the queue: such entries are recognised and skipped when their day
+ * comes, so each change costs O(log d) for d distinct reminder days.</p>
+ *
+ * <p>A recurring deadline or event is queued once, for its next occurrence only. When that
+ * reminder is handed out the task is queued again for the occurrence after it, so a series that
+ * repeats for years never holds more than one entry.</p>
+ */
+final class ReminderQueue {
+
+    /** Days between a reminder and its deadline or event start, unless configured otherwise. */
+    static final int DEFAULT_LEAD_DAYS = 1;
+
+    private final int leadDays;
+    private final NavigableMap<Long, Bucket> byDay = new TreeMap<>();
+    private boolean isBuilt;
+
+    /** Task IDs whose reminders fall on the same day. */
+    private static final class Bucket {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+
+    /**
+     * Creates an empty queue.
+     *
+     * @param leadDays how many days before its date a task is reminded of
+     */
+    ReminderQueue(int leadDays) {
+        assert leadDays >= 0 : "leadDays must not be negative";
+        this.leadDays = leadDays;
+    }
+
+    /**
+     * Returns the lead time configured with {@code -Dyuri.remind.days}, or
+     * {@value #DEFAULT_LEAD_DAYS} if it is missing or not a non-negative number.
+     */
+    static int configuredLeadDays() {
+        try {
+            int days = Integer.parseInt(System.getProperty("yuri.remind.days", ""));
+            return days >= 0 ? days : DEFAULT_LEAD_DAYS;
+        } catch (NumberFormatException e) {
+            return DEFAULT_LEAD_DAYS;
+        }
+    }
+
+    /**
+     * Queues a reminder for the task if it is a pending deadline or event. Does nothing before the
+     * first {@link #takeDue(TaskStore, LocalDate)}, whose scan will find the task anyway.
+     *
+     * @param t task that was just added, re-inserted or unmarked
+     */
+    void schedule(Yuri.Task t) {
+        if (!isBuilt) {
+            return;
+        }
+        LocalDate date = dateOf(t);
+        if (date != null && !t.isDone && t.id > 0) {
+            // a recurring task's past occurrences are skipped when this entry comes up
+            enqueue(date.toEpochDay() - leadDays, t.id);
+        }
+    }
+
+    private void enqueue(long day, int id) {
+        byDay.computeIfAbsent(day, k -> new Bucket()).add(id);
+    }
+
+    /** Forgets every queued reminder; the next {@link #takeDue} scans the list again. */
+    void reset() {
+        byDay.clear();
+        isBuilt = false;
+    }
+
+    /**
+     * Removes and returns the positions of the tasks whose reminder is due by {@code today}, in
+     * order of their dates. Tasks that were deleted or marked done meanwhile, and tasks whose date
+     * has already passed, are dropped without a reminder. A recurring task is reminded of one
+     * occurrence at a time and then queued again for the one after.
+     *
+     * @param tasks the list the queue belongs to
+     * @param today current date
+     * @return zero-based positions of the tasks to remind of (possibly empty)
+     */
+    int[] takeDue(TaskStore tasks, LocalDate today) {
+        long[] due = takeDueByDate(tasks, today);
+        int[] positions = new int[due.length];
+        for (int i = 0; i < due.length; i++) {
+            positions[i] = (int) due[i];
+        }
+        return positions;
+    }
+
+    /**
+     * Like {@link #takeDue(TaskStore, LocalDate)}, but also says which date each reminder is for,
+     * which for a recurring task may be a later occurrence than the next one from {@code today}.
+     *
+     * @param tasks the list the queue belongs to
+     * @param today current date
+     * @return the epoch day of each reminder's date in the high 32 bits and the task's zero-based
+     *         position in the low 32 bits, in ascending order (possibly empty)
+     */
+    long[] takeDueByDate(TaskStore tasks, LocalDate today) {
+        if (!isBuilt) {
+            build(tasks);
+        }
+        long todayDay = today.toEpochDay();
+        BitSet seen = new BitSet();
+        // date in the high half and position in the low half, so one sort orders both
+        long[] due = new long[0];
+        int n = 0;
+        List<long[]> requeue = new ArrayList<>();
+        Iterator<Map.Entry<Long, Bucket>> it = byDay.headMap(todayDay, true).entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Bucket> entry = it.next();
+            Bucket bucket = entry.getValue();
+            // a recurring task's entry stands for its first occurrence from this day on
+            LocalDate from = LocalDate.ofEpochDay(Math.max(todayDay, entry.getKey() + leadDays));
+            it.remove();
+            for (int k = 0; k < bucket.size; k++) {
+                int id = bucket.ids[k];
+                int pos = tasks.indexOfId(id);
+                if (pos < 0 || seen.get(id)) {
+                    continue;
+                }
+                Yuri.Task t = tasks.get(pos);
+                LocalDate date = nextDate(t, from);
+                if (t.isDone || date == null || date.toEpochDay() < todayDay) {
+                    continue;
+                }
+                seen.set(id);
+                Recurrence every = t.getRecurrence();
+                if (date.toEpochDay() - leadDays > todayDay) {
+                    // the occurrence this entry was queued for has passed; wait for the next one
+                    requeue.add(new long[] {date.toEpochDay() - leadDays, id});
+                    continue;
+                }
+                if (every != null) {
+                    LocalDate after = every.nextOnOrAfter(dateOf(t), date.plusDays(1));
+                    requeue.add(new long[] {after.toEpochDay() - leadDays, id});
+                }
+                if (n == due.length) {
+                    due = Arrays.copyOf(due, Math.max(8, n * 2));
+                }
+                due[n++] = (date.toEpochDay() << 32) | pos;
+            }
+        }
+        for (long[] again : requeue) {
+            enqueue(again[0], (int) again[1]);
+        }
+        Arrays.sort(due, 0, n);
+        return Arrays.copyOf(due, n);
+    }
+
+    private void build(TaskStore tasks) {
+        isBuilt = true;
+        tasks.forEachPendingDate((id, day) -> enqueue(day - leadDays, id));
+    }
+
+    /**
+     * Returns a deadline's due date or an event's start, or for a recurring task the first
+     * occurrence on or after the given day that is not done yet.
+     *
+     * @param t   task to look at
+     * @param day earliest occurrence of interest
+     * @return the date, or {@code null} for a todo
+     */
+    private static LocalDate nextDate(Yuri.Task t, LocalDate day) {
+        LocalDate date = dateOf(t);
+        Recurrence every = t.getRecurrence();
+        return date == null || every == null ? date : every.nextOpen(date, t.getDoneThrough(), day);
+    }
+
+    /**
+     * Returns a deadline's due date or an event's start, or for a recurring task its first
+     * occurrence that is not done yet.
+     *
+     * @param t task to look at
+     * @return the date, or {@code null} for a todo
+     */
+    static LocalDate firstOpenDate(Yuri.Task t) {
+        return nextDate(t, dateOf(t));
+    }
+
+    /**
+     * Returns the date a task is reminded of: a deadline's due date or an event's start, which
+     * for a recurring task is its first occurrence.
+     */
+    static LocalDate dateOf(Yuri.Task t) {
+        if (t instanceof Yuri.Deadline) {
+            return ((Yuri.Deadline) t).getBy();
+        }
+        if (t instanceof Yuri.Event) {
+            return ((Yuri.Event) t).getFrom();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,516 @@
+package yuri;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Reads the pipe-separated save file into tasks.
+ * The file is memory-mapped and split into chunks at line boundaries; large files have their
+ * chunks parsed on the common fork-join pool and the results are stitched back in file order.
+ * Each line is copied out of the mapping into a small reused buffer just before it is parsed.
+ * Lines are split with a hand-written scanner instead of a regex.
+ *
+ * <p>A line may end with a {@code | #<id>} field holding the task's stable ID, and the file may
+ * start with a {@code # next-id <n>} header line; files written before IDs existed have neither.
+ * A recurring deadline or event has an {@code every day|week|month} field after its dates, and
+ * once some of its occurrences are done, a {@code done <yyyy-MM-dd>} field naming the last one.</p>
+ *
+ * <p>{@link #index(Path)} is the lazy alternative to {@link #load(Path)}: it only validates lines
+ * and remembers their offsets, leaving each task to be parsed on first use.</p>
+ */
+final class SaveFileLoader {
+
+    /** Files smaller than this are parsed on the calling thread as a single chunk. */
+    static final long PARALLEL_THRESHOLD = 1L << 20;
+
+    /** Target size of one parallel chunk; the real size is extended to the next newline. */
+    static final int CHUNK_SIZE = 4 << 20;
+
+    /** Prefix of the optional first line recording the next ID to hand out. */
+    static final String NEXT_ID_HEADER = "# next-id ";
+
+    private static final int MAX_FIELDS = 8;
+    private static final byte[] EVERY = "every ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DONE = "done ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NEXT_ID = NEXT_ID_HEADER.getBytes(StandardCharsets.US_ASCII);
+    /** Bytes read to find the next-ID header: the prefix, an int, and a line break. */
+    private static final int NEXT_ID_LINE_MAX = NEXT_ID.length + 12;
+    private static final int MAX_INDEXED_SIZE = Integer.MAX_VALUE - 8;
+
+    private SaveFileLoader() {
+    }
+
+    /**
+     * Parses every task in the given file, skipping malformed lines.
+     *
+     * @param path save file to read
+     * @return tasks in file order (possibly empty)
+     * @throws IOException if the file cannot be read
+     */
+    static ArrayList<Yuri.Task> load(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < PARALLEL_THRESHOLD) {
+                ArrayList<Yuri.Task> out = new ArrayList<>();
+                parseChunk(ch, 0, size, out);
+                return out;
+            }
+            return loadParallel(ch, size);
+        }
+    }
+
+    /**
+     * Reads the given file and records where each well-formed task line is, without parsing any
+     * task. The returned list parses each task when it is first read. Files too large for one
+     * array are parsed eagerly by {@link #load(Path)} instead.
+     *
+     * @param path save file to read
+     * @return tasks in file order (possibly empty)
+     * @throws IOException if the file cannot be read
+     */
+    static List<Yuri.Task> index(Path path) throws IOException {
+        if (Files.size(path) > MAX_INDEXED_SIZE) {
+            return load(path);
+        }
+        byte[] b = Files.readAllBytes(path);
+        int[] starts = new int[1024];
+        int[] ends = new int[1024];
+        int n = 0;
+        int[] fields = new int[MAX_FIELDS * 2];
+        int lineStart = 0;
+        for (int i = 0; i <= b.length; i++) {
+            if (i == b.length || b[i] == '\n') {
+                int lineEnd = i;
+                if (lineEnd > lineStart && b[lineEnd - 1] == '\r') {
+                    lineEnd--;
+                }
+                if (isWellFormed(b, fields, splitFields(b, lineStart, lineEnd, fields))) {
+                    if (n == starts.length) {
+                        starts = Arrays.copyOf(starts, n * 2);
+                        ends = Arrays.copyOf(ends, n * 2);
+                    }
+                    starts[n] = lineStart;
+                    ends[n] = lineEnd;
+                    n++;
+                }
+                lineStart = i + 1;
+            }
+        }
+        return new LazyTaskList(b, starts, ends, n);
+    }
+
+    /**
+     * Reads the next-ID header of a text save file. Only the first few bytes are read, and as
+     * bytes, so a malformed character later in the file cannot fail the load.
+     *
+     * @param path save file to read
+     * @return the recorded next ID, or 0 if the file has no header
+     * @throws IOException if the file cannot be read
+     */
+    static int readNextId(Path path) throws IOException {
+        byte[] head;
+        try (InputStream in = Files.newInputStream(path)) {
+            head = in.readNBytes(NEXT_ID_LINE_MAX);
+        }
+        if (!startsWith(head, 0, head.length, NEXT_ID)) {
+            return 0;
+        }
+        int end = NEXT_ID.length;
+        while (end < head.length && head[end] != '\n' && head[end] != '\r') {
+            end++;
+        }
+        if (end == NEXT_ID_LINE_MAX) {
+            return 0; // too long to be a header
+        }
+        try {
+            return Integer.parseInt(new String(head, NEXT_ID.length, end - NEXT_ID.length,
+                    StandardCharsets.US_ASCII).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Parses a single save-format line, e.g. {@code D | 0 | return book | 2019-12-02}.
+     *
+     * @param line one line of the save file, without its line terminator
+     * @return the task, or {@code null} if the line is malformed
+     */
+    static Yuri.Task parseLine(String line) {
+        assert line != null : "parseLine input line must not be null";
+        byte[] b = line.getBytes(StandardCharsets.UTF_8);
+        return parseLine(b, 0, b.length, new int[MAX_FIELDS * 2]);
+    }
+
+    /** Returns a scratch array for {@link #pendingDate(byte[], int, int, int[], TaskStore.DateSink)}. */
+    static int[] newFields() {
+        return new int[MAX_FIELDS * 2];
+    }
+
+    /**
+     * Passes the ID and date of the well-formed line in {@code b[from, to)} to {@code sink} if it
+     * is a pending deadline or event with an ID, as {@link TaskStore#forEachPendingDate} does for
+     * a built task. Only the type, done, date and ID fields are read; no task is built.
+     *
+     * @param fields scratch array from {@link #newFields()}
+     */
+    static void pendingDate(byte[] b, int from, int to, int[] fields, TaskStore.DateSink sink) {
+        int count = splitFields(b, from, to, fields);
+        byte type = b[fields[0]];
+        boolean done = fields[3] - fields[2] == 1 && b[fields[2]] == '1';
+        if (type == 'T' || done) {
+            return;
+        }
+        int idField = type == 'D' ? 4 : 5;
+        if (count > idField && recurrence(b, fields[idField * 2], fields[idField * 2 + 1]) != null) {
+            idField++;
+            if (count > idField && doneThrough(b, fields[idField * 2], fields[idField * 2 + 1]) != null) {
+                idField++;
+            }
+        }
+        int id = id(b, fields, count, idField);
+        if (id > 0) {
+            sink.accept(id, parseDate(b, fields[6], fields[7]).toEpochDay());
+        }
+    }
+
+    /* =========================
+       Internal: chunking
+       ========================= */
+
+    private static ArrayList<Yuri.Task> loadParallel(FileChannel ch, long size) throws IOException {
+        List<Long> starts = new ArrayList<>();
+        long pos = 0;
+        while (pos < size) {
+            starts.add(pos);
+            pos = nextLineStart(ch, Math.min(size, pos + CHUNK_SIZE), size);
+        }
+        starts.add(size);
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        List<Future<List<Yuri.Task>>> parts = new ArrayList<>(starts.size() - 1);
+        for (int i = 0; i + 1 < starts.size(); i++) {
+            long from = starts.get(i);
+            long to = starts.get(i + 1);
+            parts.add(pool.submit(() -> {
+                List<Yuri.Task> out = new ArrayList<>();
+                parseChunk(ch, from, to, out);
+                return out;
+            }));
+        }
+
+        ArrayList<Yuri.Task> tasks = new ArrayList<>();
+        try {
+            for (Future<List<Yuri.Task>> part : parts) {
+                tasks.addAll(part.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading " + ch, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to parse save file chunk", e.getCause());
+        }
+        return tasks;
+    }
+
+    /** Returns the offset just past the first newline at or after {@code pos}, or {@code size}. */
+    private static long nextLineStart(FileChannel ch, long pos, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        while (pos < size) {
+            probe.clear();
+            int n = ch.read(probe, pos);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    private static void parseChunk(FileChannel ch, long from, long to, List<Yuri.Task> out)
+            throws IOException {
+        int len = (int) (to - from);
+        if (len == 0) {
+            return;
+        }
+        MappedByteBuffer mapped = ch.map(FileChannel.MapMode.READ_ONLY, from, len);
+        // lines are scanned in the mapping and copied one at a time, so a chunk is never held
+        // on the heap as a whole next to its mapped pages
+        byte[] line = new byte[256];
+        int[] fields = new int[MAX_FIELDS * 2];
+        int lineStart = 0;
+        for (int i = 0; i <= len; i++) {
+            if (i == len || mapped.get(i) == '\n') {
+                int lineEnd = i;
+                if (lineEnd > lineStart && mapped.get(lineEnd - 1) == '\r') {
+                    lineEnd--;
+                }
+                int lineLen = lineEnd - lineStart;
+                if (lineLen > line.length) {
+                    line = new byte[Math.max(lineLen, line.length * 2)];
+                }
+                mapped.get(lineStart, line, 0, lineLen);
+                Yuri.Task t = parseLine(line, 0, lineLen, fields);
+                // task may be null for malformed lines by design
+                if (t != null) {
+                    out.add(t);
+                }
+                lineStart = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Parses every well-formed task line in {@code b[from, to)}, skipping malformed ones.
+     *
+     * @param out receives the tasks in order
+     */
+    static void parseLines(byte[] b, int from, int to, List<Yuri.Task> out) {
+        int[] fields = new int[MAX_FIELDS * 2];
+        int lineStart = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || b[i] == '\n') {
+                int lineEnd = i;
+                if (lineEnd > lineStart && b[lineEnd - 1] == '\r') {
+                    lineEnd--;
+                }
+                Yuri.Task t = parseLine(b, lineStart, lineEnd, fields);
+                // task may be null for malformed lines by design
+                if (t != null) {
+                    out.add(t);
+                }
+                lineStart = i + 1;
+            }
+        }
+    }
+
+    /* =========================
+       Internal: field scanning
+       ========================= */
+
+    /**
+     * Parses the save-format line held in {@code b[from, to)}.
+     *
+     * @return the task, or {@code null} if the line is malformed
+     */
+    static Yuri.Task parseLine(byte[] b, int from, int to) {
+        return parseLine(b, from, to, new int[MAX_FIELDS * 2]);
+    }
+
+    private static Yuri.Task parseLine(byte[] b, int from, int to, int[] fields) {
+        int count = splitFields(b, from, to, fields);
+        return isWellFormed(b, fields, count) ? build(b, fields, count) : null;
+    }
+
+    /**
+     * Splits {@code b[from, to)} on {@code '|'}, dropping whitespace next to each pipe,
+     * which matches the old {@code split("\\s*\\|\\s*")} behaviour.
+     *
+     * @return number of fields, whose start and end offsets are stored in pairs in {@code fields}
+     */
+    private static int splitFields(byte[] b, int from, int to, int[] fields) {
+        int count = 0;
+        int start = from;
+        for (int i = from; i <= to && count < MAX_FIELDS; i++) {
+            if (i == to || b[i] == '|') {
+                int s = start;
+                int e = i;
+                if (count > 0) {
+                    while (s < e && isSpace(b[s])) {
+                        s++;
+                    }
+                }
+                if (i < to) {
+                    while (e > s && isSpace(b[e - 1])) {
+                        e--;
+                    }
+                }
+                fields[count * 2] = s;
+                fields[count * 2 + 1] = e;
+                count++;
+                start = i + 1;
+            }
+        }
+        // split() drops trailing empty fields
+        while (count > 0 && fields[count * 2 - 1] == fields[count * 2 - 2]) {
+            count--;
+        }
+        return count;
+    }
+
+    /** Checks that split fields make up a task without creating any objects. */
+    private static boolean isWellFormed(byte[] b, int[] fields, int count) {
+        if (count < 3 || fields[1] - fields[0] != 1) {
+            return false;
+        }
+        switch (b[fields[0]]) {
+            case 'T':
+                return true;
+            case 'D':
+                return count >= 4 && isDate(b, fields[6], fields[7]);
+            case 'E':
+                return count >= 5 && isDate(b, fields[6], fields[7]) && isDate(b, fields[8], fields[9]);
+            default:
+                return false;
+        }
+    }
+
+    /** Builds the task from fields that passed {@link #isWellFormed(byte[], int[], int)}. */
+    private static Yuri.Task build(byte[] b, int[] fields, int count) {
+        byte type = b[fields[0]];
+        boolean done = fields[3] - fields[2] == 1 && b[fields[2]] == '1';
+        String desc = new String(b, fields[4], fields[5] - fields[4], StandardCharsets.UTF_8);
+        Yuri.Task t;
+        int idField;
+        Recurrence every = null;
+        if (type == 'T') {
+            t = new Yuri.Todo(desc);
+            idField = 3;
+        } else if (type == 'D') {
+            LocalDate by = parseDate(b, fields[6], fields[7]);
+            every = count > 4 ? recurrence(b, fields[8], fields[9]) : null;
+            t = every == null ? new Yuri.Deadline(desc, by) : new Yuri.RecurringDeadline(desc, by, every);
+            idField = every == null ? 4 : 5;
+        } else {
+            LocalDate from = parseDate(b, fields[6], fields[7]);
+            LocalDate to = parseDate(b, fields[8], fields[9]);
+            every = count > 5 ? recurrence(b, fields[10], fields[11]) : null;
+            t = every == null ? new Yuri.Event(desc, from, to)
+                    : new Yuri.RecurringEvent(desc, from, to, every);
+            idField = every == null ? 5 : 6;
+        }
+        if (every != null && count > idField) {
+            LocalDate doneThrough = doneThrough(b, fields[idField * 2], fields[idField * 2 + 1]);
+            if (doneThrough != null) {
+                t.setDoneThrough(doneThrough);
+                idField++;
+            }
+        }
+
+        if (done) t.mark();
+        t.id = id(b, fields, count, idField);
+        return t;
+    }
+
+    /** Returns the {@code #<id>} held in field {@code idField}, or 0 if the line has none. */
+    private static int id(byte[] b, int[] fields, int count, int idField) {
+        if (count > idField) {
+            int s = fields[idField * 2];
+            int e = fields[idField * 2 + 1];
+            if (e - s > 1 && e - s <= 10 && b[s] == '#') {
+                return Math.max(0, digits(b, s + 1, e - s - 1));
+            }
+        }
+        return 0;
+    }
+
+    /** Parses an {@code every <word>} field, or returns {@code null} if the field is not one. */
+    private static Recurrence recurrence(byte[] b, int from, int to) {
+        int n = EVERY.length;
+        if (to - from <= n || b[from] != 'e') {
+            return null;
+        }
+        for (int i = 0; i < n; i++) {
+            if (b[from + i] != EVERY[i]) {
+                return null;
+            }
+        }
+        return Recurrence.fromWord(new String(b, from + n, to - from - n, StandardCharsets.US_ASCII));
+    }
+
+    /** Parses a {@code done <yyyy-MM-dd>} field, or returns {@code null} if the field is not one. */
+    private static LocalDate doneThrough(byte[] b, int from, int to) {
+        int n = DONE.length;
+        if (to - from <= n || b[from] != 'd') {
+            return null;
+        }
+        for (int i = 0; i < n; i++) {
+            if (b[from + i] != DONE[i]) {
+                return null;
+            }
+        }
+        return isDate(b, from + n, to) ? parseDate(b, from + n, to) : null;
+    }
+
+    /** Returns whether {@code b[from, to)} starts with {@code prefix}. */
+    private static boolean startsWith(byte[] b, int from, int to, byte[] prefix) {
+        if (to - from < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (b[from + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns whether {@link #parseDate(byte[], int, int)} accepts the text. */
+    private static boolean isDate(byte[] b, int from, int to) {
+        if (to - from == 10 && b[from + 4] == '-' && b[from + 7] == '-') {
+            int y = digits(b, from, 4);
+            int m = digits(b, from + 5, 2);
+            int d = digits(b, from + 8, 2);
+            if (y >= 0 && m >= 0 && d >= 0) {
+                return m >= 1 && m <= 12 && d >= 1 && d <= Month.of(m).length(Year.isLeap(y));
+            }
+        }
+        try {
+            parseDate(b, from, to);
+            return true;
+        } catch (DateTimeException e) {
+            return false;
+        }
+    }
+
+    /** Parses an ISO {@code yyyy-MM-dd} date without going through a formatter. */
+    private static LocalDate parseDate(byte[] b, int from, int to) {
+        if (to - from == 10 && b[from + 4] == '-' && b[from + 7] == '-') {
+            int y = digits(b, from, 4);
+            int m = digits(b, from + 5, 2);
+            int d = digits(b, from + 8, 2);
+            if (y >= 0 && m >= 0 && d >= 0) {
+                return LocalDate.of(y, m, d);
+            }
+        }
+        return LocalDate.parse(new String(b, from, to - from, StandardCharsets.UTF_8));
+    }
+
+    private static int digits(byte[] b, int from, int n) {
+        int v = 0;
+        for (int i = from; i < from + n; i++) {
+            int d = b[i] - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    private static boolean isSpace(byte c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == 0x0B || c == '\f';
+    }
+}
@@ -1,19 +1,164 @@
 package yuri;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Handles persistence of tasks to and from the save file on disk.
- * The file format is the simple pipe-separated format produced by each task's {@code toSaveFormat()}.
+ * The file format is the simple pipe-separated format produced by each task's {@code toSaveFormat()},
+ * read back by {@link SaveFileLoader}.
+ *
+ * <p>Snapshots can instead be kept in the compact {@link BinarySaveFormat}. The snapshot's format is
+ * detected from its first bytes on load, and a snapshot in the other format is migrated by
+ * rewriting it in the configured one.</p>
+ *
+ * <p>Mutations are not written by rewriting the whole save file. Instead each one is appended as a
+ * single record to a journal next to the snapshot ({@code <filePath>.journal}), and {@link #load()}
+ * replays the journal on top of the snapshot. Once enough records pile up, the journal is folded
+ * into a fresh snapshot on a background thread.</p>
+ *
+ * <p>Every task is given a stable ID by {@link #assignId(Yuri.Task)}. IDs are handed out in
+ * increasing order and never reused, even after a restart: snapshots record the next ID to hand
+ * out, and add records carry the ID of the added task.</p>
+ *
+ * <p>Once {@link #watch()} is called, changes other programs make to the snapshot file are picked
+ * up by a background thread: lines appended to a text snapshot are read from where the last read
+ * stopped, anything else re-reads the whole file. The result waits in
+ * {@link #takeExternalChange()} until the owner of the tasks applies it.</p>
  */
 public class Storage {
 
+    /** On-disk format of the snapshot file; the journal is always text. */
+    public enum Format {
+        TEXT, BINARY
+    }
+
+    /** Default number of journal records after which a compaction is started. */
+    public static final int DEFAULT_COMPACT_EVERY = 1000;
+
+    private static final String REC_ADD = "A";
+    private static final String REC_MARK = "M";
+    private static final String REC_UNMARK = "U";
+    private static final String REC_DELETE = "X";
+    private static final String REC_INSERT = "I";
+    private static final String REC_OCCURRENCE = "O";
+    /** Written in place of a date by an occurrence record that opens every occurrence again. */
+    private static final String NO_OCCURRENCE = "-";
+
+    /** Bytes before the read position compared to tell an append from a rewrite. */
+    private static final int TAIL_BYTES = 64;
+
     private final String filePath;
+    private final Path journalPath;
+    private final Path rotatedJournalPath;
+    private final Path snapshotTmpPath;
+    private final int compactEvery;
+    private final Format format;
+
+    /** Started by the first compaction and shut down by {@link #close()}. */
+    private ExecutorService compactor;
+
+    private ScheduledExecutorService flusher;
+
+    private BufferedWriter journal;
+    private int journalRecords;
+    private int nextId = 1;
+    private volatile Metrics metrics = new Metrics();
+    private boolean isAutoFlush = true;
+    private long flushDelayMs;
+    private boolean isFlushScheduled;
+    private Future<?> pendingCompaction;
+    private WatchService watchService;
+
+    /** Guards what is known about the snapshot file on disk; never held while taking {@code this}. */
+    private final Object watchLock = new Object();
+    private BasicFileAttributes known;
+    private long readOffset;
+    private byte[] knownTail = new byte[0];
+    /** Counts snapshots this storage wrote; a re-read from before the latest one is out of date. */
+    private volatile int generation;
+
+    private final Object pendingLock = new Object();
+    private ExternalChange pendingChange;
+
+    /**
+     * A change another program made to the snapshot file, read and parsed but not yet applied.
+     * Either tasks were appended, or the file was rewritten and all of its tasks were read again.
+     */
+    public static final class ExternalChange {
+        private final boolean isAppend;
+        private final List<Yuri.Task> tasks;
+        private final int recordedNextId;
+        private final boolean isLazy;
+        private final int generation;
+
+        private ExternalChange(boolean isAppend, List<Yuri.Task> tasks, int recordedNextId,
+                boolean isLazy, int generation) {
+            this.isAppend = isAppend;
+            this.tasks = tasks;
+            this.recordedNextId = recordedNextId;
+            this.isLazy = isLazy;
+            this.generation = generation;
+        }
+
+        /** Returns whether tasks were only appended; otherwise {@link #tasks()} replaces every task. */
+        public boolean isAppend() {
+            return isAppend;
+        }
+
+        /** Returns the appended tasks, or every task of the re-read file. */
+        public List<Yuri.Task> tasks() {
+            return tasks;
+        }
+    }
+
+    /** A snapshot file as read from disk, before the journal is replayed. */
+    private static final class Snapshot {
+        final Format format;
+        final int recordedNextId;
+        final List<Yuri.Task> tasks;
+
+        Snapshot(Format format, int recordedNextId, List<Yuri.Task> tasks) {
+            this.format = format;
+            this.recordedNextId = recordedNextId;
+            this.tasks = tasks;
+        }
+
+        /** With a next-ID header every task already has an ID, so none needs to be looked at. */
+        boolean isLazy() {
+            return format == Format.TEXT && recordedNextId > 0;
+        }
+    }
 
     /**
      * Creates a {@code Storage} that reads/writes to the given path.
@@ -21,21 +166,117 @@ public class Storage {
      * @param filePath path of the save file, e.g. {@code data/duke.txt}
      */
     public Storage(String filePath) {
+        this(filePath, DEFAULT_COMPACT_EVERY);
+    }
+
+    /**
+     * Creates a {@code Storage} that compacts its journal every {@code compactEvery} records.
+     *
+     * @param filePath     path of the save file, e.g. {@code data/duke.txt}
+     * @param compactEvery number of journal records that triggers a background compaction
+     */
+    public Storage(String filePath, int compactEvery) {
+        this(filePath, compactEvery, Format.TEXT);
+    }
+
+    /**
+     * Creates a {@code Storage} that writes snapshots in the given format.
+     *
+     * @param filePath path of the save file, e.g. {@code data/duke.bin}
+     * @param format   format used for snapshots written from now on
+     */
+    public Storage(String filePath, Format format) {
+        this(filePath, DEFAULT_COMPACT_EVERY, format);
+    }
+
+    /**
+     * Creates a {@code Storage} with every setting given explicitly.
+     *
+     * @param filePath     path of the save file
+     * @param compactEvery number of journal records that triggers a background compaction
+     * @param format       format used for snapshots written from now on
+     */
+    public Storage(String filePath, int compactEvery, Format format) {
         assert filePath != null : "Storage filePath must not be null";
+        assert compactEvery > 0 : "compactEvery must be positive";
+        assert format != null : "format must not be null";
         this.filePath = filePath;
+        this.format = format;
+        this.journalPath = Path.of(filePath + ".journal");
+        this.rotatedJournalPath = Path.of(filePath + ".journal.old");
+        this.snapshotTmpPath = Path.of(filePath + ".tmp");
+        this.compactEvery = compactEvery;
+    }
+
+    /**
+     * Returns a storage with the same settings for the named list, kept in a {@code lists}
+     * directory next to this storage's file, e.g. {@code data/lists/work.txt}.
+     *
+     * @param name list name, already checked to be a safe file name
+     * @return storage for that list; its file is created on first {@link #load()}
+     */
+    public Storage forList(String name) {
+        assert name != null && !name.isEmpty() : "List name must not be empty";
+        return new Storage(listsDir().resolve(name + extension()).toString(), compactEvery, format);
+    }
+
+    /**
+     * Returns the names of the lists saved by storages from {@link #forList(String)}.
+     *
+     * @return list names in alphabetical order (possibly empty)
+     * @throws IOException if the lists directory cannot be read
+     */
+    public List<String> listNames() throws IOException {
+        Path dir = listsDir();
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        String ext = extension();
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.endsWith(ext) && n.length() > ext.length())
+                    .map(n -> n.substring(0, n.length() - ext.length()))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path listsDir() {
+        Path parent = Path.of(filePath).toAbsolutePath().getParent();
+        return parent.resolve("lists");
+    }
+
+    private String extension() {
+        return format == Format.BINARY ? ".bin" : ".txt";
+    }
+
+    /**
+     * Sets where load and save timings and written byte counts are recorded.
+     *
+     * @param metrics measurements to update from now on
+     */
+    public void setMetrics(Metrics metrics) {
+        assert metrics != null : "metrics must not be null";
+        this.metrics = metrics;
     }
 
     /**
-     * Loads tasks from disk.
-     * <p>If the file does not exist, it is created and an empty list is returned.</p>
+     * Loads tasks from disk: the snapshot first, then any journal records on top of it.
+     * <p>If the file does not exist, it is created and an empty list is returned. If the snapshot
+     * is not in this storage's format, or was written before tasks had IDs, it is rewritten once in
+     * this storage's format with every task given an ID.</p>
+     * <p>Text snapshots that record their next ID are only indexed, not parsed: each task is parsed
+     * the first time the returned list hands it out, so loading costs little more than reading the
+     * file. Other snapshots are parsed in full.</p>
      *
      * @return list of tasks loaded from disk (possibly empty)
      * @throws IOException if an I/O error occurs while creating/reading the file
      */
-    public ArrayList<Yuri.Task> load() throws IOException {
-        ArrayList<Yuri.Task> tasks = new ArrayList<>();
+    public synchronized List<Yuri.Task> load() throws IOException {
+        long start = System.nanoTime();
         File file = new File(filePath);
         assert file != null : "File ref must not be null";
+        nextId = 1;
 
         if (!file.exists()) {
             File parent = file.getParentFile();
@@ -44,79 +285,827 @@ public class Storage {
             }
             boolean created = file.createNewFile();
             assert file.exists() || created : "File should exist or be created";
-            return tasks;
+            rememberSnapshot(false);
+            return new ArrayList<>();
         }
 
-        try (Scanner sc = new Scanner(file)) {
-            while (sc.hasNextLine()) {
-                String line = sc.nextLine();
-                assert line != null : "Read line should not be null";
-                Yuri.Task task = parseTask(line);
-                // task may be null for malformed lines by design
-                if (task != null) {
-                    tasks.add(task);
-                }
+        Snapshot snapshot = readSnapshot(file.toPath());
+        Format found = snapshot.format;
+        boolean isLazy = snapshot.isLazy();
+        List<Yuri.Task> tasks = snapshot.tasks;
+        nextId = Math.max(1, snapshot.recordedNextId);
+        if (!isLazy) {
+            for (Yuri.Task t : tasks) {
+                nextId = Math.max(nextId, t.id + 1);
             }
         }
+        recoverInterruptedCompaction();
+        List<Yuri.Task> added = new ArrayList<>();
+        journalRecords = replayJournal(journalPath, tasks, added);
+        boolean isMissingIds = false;
+        for (Yuri.Task t : isLazy ? added : tasks) {
+            isMissingIds |= assignId(t);
+        }
+        if (isMissingIds || (found != format && file.length() > 0)) {
+            save(tasks);
+        }
+        rememberSnapshot(false);
+        synchronized (pendingLock) {
+            pendingChange = null;
+        }
+        metrics.recordLoad(System.nanoTime() - start);
         assert tasks != null : "Loaded task list should not be null";
         return tasks;
     }
 
+    /**
+     * Moves a legacy text save file (and its journal) into this storage's file, in this storage's
+     * format. Does nothing if this storage's file already exists or the legacy file does not.
+     * The legacy file is kept next to the original as {@code <legacyPath>.migrated}.
+     *
+     * @param legacyPath path of the old text save file, e.g. {@code data/duke.txt}
+     * @return true if a migration happened
+     * @throws IOException if reading the legacy file or writing the new one fails
+     */
+    public synchronized boolean migrateFrom(String legacyPath) throws IOException {
+        Path legacy = Path.of(legacyPath);
+        if (Files.exists(Path.of(filePath)) || !Files.exists(legacy)) {
+            return false;
+        }
+        Storage old = new Storage(legacyPath);
+        List<Yuri.Task> tasks = old.load();
+        old.close();
+        nextId = old.nextId;
+        Path parent = Path.of(filePath).toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        save(tasks);
+        Files.move(legacy, Path.of(legacyPath + ".migrated"), StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(Path.of(legacyPath + ".journal"));
+        return true;
+    }
+
     /**
      * Saves the given tasks to disk, overwriting any existing content.
+     * The journal is emptied since the snapshot now reflects every recorded change.
      *
      * @param tasks tasks to persist
      * @throws IOException if an I/O error occurs while writing
      */
-    public void save(List<Yuri.Task> tasks) throws IOException {
+    public synchronized void save(List<Yuri.Task> tasks) throws IOException {
         assert tasks != null : "Tasks to save must not be null";
-        try (FileWriter fw = new FileWriter(filePath)) {
-            for (Yuri.Task task : tasks) {
-                assert task != null : "Individual task must not be null";
-                String line = task.toSaveFormat();
-                assert line != null : "toSaveFormat must not return null";
-                fw.write(line);
-                fw.write(System.lineSeparator());
+        awaitCompaction();
+        synchronized (watchLock) {
+            writeSnapshot(tasks, nextId, Path.of(filePath));
+            rememberSnapshot(true);
+        }
+        closeJournal();
+        Files.deleteIfExists(journalPath);
+        journalRecords = 0;
+    }
+
+    /**
+     * Gives the task the next stable ID if it does not have one yet.
+     *
+     * @param task task to number
+     * @return true if an ID was assigned
+     */
+    public synchronized boolean assignId(Yuri.Task task) {
+        assert task != null : "Task to number must not be null";
+        if (task.id > 0) {
+            return false;
+        }
+        task.id = nextId++;
+        return true;
+    }
+
+    /**
+     * Appends an "add" record for a task placed at the end of the list.
+     *
+     * @param task the task that was added
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized void appendAdd(Yuri.Task task) throws IOException {
+        assert task != null : "Added task must not be null";
+        appendRecord(REC_ADD + " | " + saveLine(task));
+    }
+
+    /**
+     * Appends a record setting the done flag of the task at the given zero-based index.
+     *
+     * @param idx0   zero-based index of the task
+     * @param isDone new done state
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized void appendDone(int idx0, boolean isDone) throws IOException {
+        assert idx0 >= 0 : "Journal index must not be negative";
+        appendRecord((isDone ? REC_MARK : REC_UNMARK) + " | " + idx0);
+    }
+
+    /**
+     * Appends a record setting the last done occurrence of the repeating task at the given
+     * zero-based index, e.g. {@code O | 4 | 2026-10-08}.
+     *
+     * @param idx0        zero-based index of the task
+     * @param doneThrough last done occurrence, or {@code null} if none is
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized void appendDoneThrough(int idx0, LocalDate doneThrough) throws IOException {
+        assert idx0 >= 0 : "Journal index must not be negative";
+        appendRecord(REC_OCCURRENCE + " | " + idx0 + " | "
+                + (doneThrough == null ? NO_OCCURRENCE : doneThrough.toString()));
+    }
+
+    /**
+     * Appends a record removing the task at the given zero-based index.
+     *
+     * @param idx0 zero-based index of the removed task
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized void appendDelete(int idx0) throws IOException {
+        assert idx0 >= 0 : "Journal index must not be negative";
+        appendRecord(REC_DELETE + " | " + idx0);
+    }
+
+    /**
+     * Appends a single record setting the done flag of several tasks, e.g. {@code M | 0-499}.
+     *
+     * @param positions ascending zero-based positions of the tasks
+     * @param isDone    new done state
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized void appendDone(int[] positions, boolean isDone) throws IOException {
+        assert positions.length > 0 : "Journal positions must not be empty";
+        appendRecord((isDone ? REC_MARK : REC_UNMARK) + " | " + formatPositions(positions));
+    }
+
+    /**
+     * Appends a single record removing several tasks, e.g. {@code X | 3,7,9}.
+     *
+     * @param positions ascending zero-based positions of the removed tasks, before removal
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized void appendDelete(int[] positions) throws IOException {
+        assert positions.length > 0 : "Journal positions must not be empty";
+        appendRecord(REC_DELETE + " | " + formatPositions(positions));
+    }
+
+    /**
+     * Appends one record per task re-inserted at a position, e.g. {@code I | 4 | T | 0 | read | #9},
+     * all flushed together. Positions are final positions, applied in ascending order on replay.
+     *
+     * @param positions ascending zero-based positions of the inserted tasks, after insertion
+     * @param inserted  the inserted tasks, one per position
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized void appendInsert(int[] positions, List<Yuri.Task> inserted) throws IOException {
+        assert positions.length > 0 && positions.length == inserted.size() : "One position per inserted task";
+        List<String> records = new ArrayList<>(positions.length);
+        for (int k = 0; k < positions.length; k++) {
+            records.add(REC_INSERT + " | " + positions[k] + " | " + saveLine(inserted.get(k)));
+        }
+        appendRecords(records);
+    }
+
+    /**
+     * Starts a background compaction if the journal has grown past the threshold.
+     * The snapshot is taken on the calling thread only when a compaction actually starts;
+     * rendering and writing it happen on the compactor thread.
+     *
+     * @param snapshot supplies a point-in-time copy of the current, fully up-to-date tasks
+     */
+    public synchronized void compactIfDue(Supplier<List<Yuri.Task>> snapshot) {
+        assert snapshot != null : "Tasks to compact must not be null";
+        if (journalRecords < compactEvery || isCompacting()) {
+            return;
+        }
+        startCompaction(snapshot);
+    }
+
+    /**
+     * Folds the journal into a fresh snapshot in the background now, however short the journal is.
+     * Used after applying an {@link ExternalChange}, so that the snapshot file holds the tasks in
+     * the order they have in memory.
+     *
+     * @param snapshot supplies a point-in-time copy of the current, fully up-to-date tasks
+     */
+    public synchronized void compactNow(Supplier<List<Yuri.Task>> snapshot) {
+        assert snapshot != null : "Tasks to compact must not be null";
+        awaitCompaction();
+        startCompaction(snapshot);
+    }
+
+    private void startCompaction(Supplier<List<Yuri.Task>> snapshot) {
+        List<Yuri.Task> copy = snapshot.get();
+        int copyNextId = nextId;
+        try {
+            // The empty tmp file marks "snapshot not yet written" for crash recovery.
+            Files.write(snapshotTmpPath, new byte[0]);
+            closeJournal();
+            Files.move(journalPath, rotatedJournalPath, StandardCopyOption.REPLACE_EXISTING);
+            journalRecords = 0;
+        } catch (IOException e) {
+            return; // keep journaling; we will try again on the next mutation
+        }
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "yuri-compactor");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        pendingCompaction = compactor.submit(() -> {
+            try {
+                writeSnapshot(copy, copyNextId, snapshotTmpPath);
+                synchronized (watchLock) {
+                    Files.move(snapshotTmpPath, Path.of(filePath),
+                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    rememberSnapshot(true);
+                }
+                Files.deleteIfExists(rotatedJournalPath);
+            } catch (IOException e) {
+                // Both journals are left in place, so load() still sees every change.
             }
+        });
+    }
+
+    /**
+     * Chooses whether every journal record is flushed as soon as it is written (the default).
+     * Batch runs turn this off and call {@link #flush()} once per group of commands.
+     *
+     * @param isAutoFlush true to flush after every record
+     * @throws IOException if switching back on flushes buffered records and that fails
+     */
+    public synchronized void setAutoFlush(boolean isAutoFlush) throws IOException {
+        this.isAutoFlush = isAutoFlush;
+        if (isAutoFlush) {
+            flush();
+        }
+    }
+
+    /**
+     * Makes auto-flushing lazy: instead of flushing after every record, the journal is flushed on a
+     * background thread {@code delayMs} after the first unflushed record, so a burst of edits costs
+     * one write. A delay of 0 restores flushing after every record.
+     *
+     * @param delayMs how long buffered records may wait before being flushed
+     */
+    public synchronized void setFlushDelay(long delayMs) {
+        assert delayMs >= 0 : "delayMs must not be negative";
+        this.flushDelayMs = delayMs;
+        if (delayMs > 0 && flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "yuri-flusher");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Writes any buffered journal records through to the file.
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized void flush() throws IOException {
+        if (journal != null) {
+            journal.flush();
+        }
+    }
+
+    /**
+     * Waits for any running compaction and releases the journal file handle and the compactor and
+     * flusher threads.
+     * The storage can be loaded and written again afterwards; until {@link #setFlushDelay(long)} is
+     * called again, records are flushed as they are written.
+     *
+     * @throws IOException if the journal cannot be closed
+     */
+    public synchronized void close() throws IOException {
+        awaitCompaction();
+        closeJournal();
+        if (compactor != null) {
+            compactor.shutdown();
+            compactor = null;
+        }
+        if (flusher != null) {
+            flusher.shutdown();
+            flusher = null;
+        }
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
         }
     }
 
     /* =========================
-       Internal: parse a task line
+       Watching for external changes
        ========================= */
 
-    private Yuri.Task parseTask(String line) {
-        assert line != null : "parseTask input line must not be null";
-        // Expected formats:
-        // T | 0/1 | description
-        // D | 0/1 | description | yyyy-MM-dd
-        // E | 0/1 | description | yyyy-MM-dd | yyyy-MM-dd
-        String[] p = line.split("\\s*\\|\\s*");
-        if (p.length < 3) return null;
-
-        String type = p[0];
-        assert type != null && !type.isEmpty() : "Task type must be present";
-        boolean done = "1".equals(p[1]);
-        Yuri.Task t;
-
-        switch (type) {
-            case "T":
-                t = new Yuri.Todo(p[2]);
-                break;
-            case "D":
-                assert p.length >= 4 : "Deadline requires date part";
-                t = new Yuri.Deadline(p[2], p[3]);
-                break;
-            case "E":
-                assert p.length >= 5 : "Event requires start and end dates";
-                t = new Yuri.Event(p[2], p[3], p[4]);
-                break;
-            default:
-                return null;
-        }
-
-        assert t != null : "Constructed task should not be null";
-        if (done) t.mark();
-        return t;
+    /**
+     * Starts watching the snapshot file for changes made by other programs, on a background
+     * thread that reads and parses each change as it happens. Does nothing if already watching;
+     * {@link #close()} stops the thread.
+     *
+     * @throws IOException if the file system cannot watch the save file's directory
+     */
+    public synchronized void watch() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        Path file = Path.of(filePath).toAbsolutePath();
+        WatchService ws = file.getFileSystem().newWatchService();
+        try {
+            file.getParent().register(ws, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            ws.close();
+            throw e;
+        }
+        watchService = ws;
+        Thread t = new Thread(() -> watchLoop(ws, file.getFileName()), "yuri-watcher");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Returns whether an external change is waiting in {@link #takeExternalChange()}.
+     */
+    public boolean hasExternalChange() {
+        synchronized (pendingLock) {
+            return pendingChange != null;
+        }
+    }
+
+    /**
+     * Hands over the external change read since the last call, ready to be applied.
+     * Appended tasks are given IDs. A re-read file has this storage's journal replayed on top, as
+     * {@link #load()} would; it is dropped if this storage has written a snapshot since reading it,
+     * as that snapshot replaced the other program's version.
+     * After applying the change, callers should {@link #compactNow(Supplier)}.
+     *
+     * @return the change, or {@code null} if there is none to apply
+     * @throws IOException if the journal cannot be flushed or replayed
+     */
+    public synchronized ExternalChange takeExternalChange() throws IOException {
+        ExternalChange change;
+        synchronized (pendingLock) {
+            change = pendingChange;
+            pendingChange = null;
+        }
+        if (change == null) {
+            return null;
+        }
+        if (change.isAppend) {
+            for (Yuri.Task t : change.tasks) {
+                if (!assignId(t)) {
+                    nextId = Math.max(nextId, t.id + 1);
+                }
+            }
+            return change;
+        }
+        awaitCompaction();
+        if (change.generation != generation) {
+            return null;
+        }
+        flush();
+        nextId = Math.max(nextId, change.recordedNextId);
+        if (!change.isLazy) {
+            for (Yuri.Task t : change.tasks) {
+                nextId = Math.max(nextId, t.id + 1);
+            }
+        }
+        List<Yuri.Task> added = new ArrayList<>();
+        replayJournal(journalPath, change.tasks, added);
+        for (Yuri.Task t : change.isLazy ? added : change.tasks) {
+            assignId(t);
+        }
+        return change;
+    }
+
+    private void watchLoop(WatchService ws, Path fileName) {
+        try {
+            while (true) {
+                WatchKey key = ws.take();
+                boolean isSnapshotEvent = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    isSnapshotEvent |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || fileName.equals(event.context());
+                }
+                key.reset();
+                if (isSnapshotEvent) {
+                    checkForExternalChange();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // close() stopped the watch
+        }
+    }
+
+    /**
+     * Compares the snapshot file with what this storage last wrote or read, and reads any change
+     * another program made into the slot behind {@link #takeExternalChange()}. Runs on the watcher
+     * thread, and never waits for command handling.
+     */
+    void checkForExternalChange() {
+        synchronized (watchLock) {
+            Path file = Path.of(filePath);
+            ExternalChange change;
+            try {
+                BasicFileAttributes now = Files.readAttributes(file, BasicFileAttributes.class);
+                if (isKnown(now)) {
+                    return;
+                }
+                change = isAppendedTo(file, now) ? readAppended(file) : readWhole(file, now.size());
+                known = now;
+            } catch (IOException e) {
+                return; // missing or being replaced; the next event tries again
+            }
+            if (change == null) {
+                return;
+            }
+            synchronized (pendingLock) {
+                if (pendingChange != null && change.isAppend) {
+                    pendingChange.tasks.addAll(change.tasks);
+                } else {
+                    pendingChange = change;
+                }
+            }
+        }
+    }
+
+    private boolean isKnown(BasicFileAttributes now) {
+        return known != null && now.size() == known.size()
+                && now.lastModifiedTime().equals(known.lastModifiedTime())
+                && Objects.equals(now.fileKey(), known.fileKey());
+    }
+
+    /** Whether the file is the same text file, longer, and unchanged up to where it was last read. */
+    private boolean isAppendedTo(Path file, BasicFileAttributes now) throws IOException {
+        return format == Format.TEXT && known != null
+                && Objects.equals(now.fileKey(), known.fileKey())
+                && now.size() > known.size()
+                && now.size() - readOffset < Integer.MAX_VALUE - 8
+                && Arrays.equals(readTail(file, readOffset), knownTail);
+    }
+
+    /** Parses the complete lines after the read position; a partial last line waits for its end. */
+    private ExternalChange readAppended(Path file) throws IOException {
+        byte[] b;
+        try (FileChannel ch = FileChannel.open(file)) {
+            b = new byte[(int) Math.max(0, ch.size() - readOffset)];
+            ByteBuffer buf = ByteBuffer.wrap(b);
+            while (buf.hasRemaining() && ch.read(buf, readOffset + buf.position()) > 0) {
+                // keep reading
+            }
+        }
+        int end = b.length;
+        while (end > 0 && b[end - 1] != '\n') {
+            end--;
+        }
+        if (end == 0) {
+            return null;
+        }
+        List<Yuri.Task> tasks = new ArrayList<>();
+        SaveFileLoader.parseLines(b, 0, end, tasks);
+        readOffset += end;
+        knownTail = readTail(file, readOffset);
+        return tasks.isEmpty() ? null : new ExternalChange(true, tasks, 0, false, generation);
+    }
+
+    private ExternalChange readWhole(Path file, long size) throws IOException {
+        Snapshot snapshot = readSnapshot(file);
+        readOffset = size;
+        knownTail = readTail(file, size);
+        return new ExternalChange(false, snapshot.tasks, snapshot.recordedNextId, snapshot.isLazy(), generation);
+    }
+
+    /**
+     * Records the snapshot file as this storage last wrote or read it, so that the watcher only
+     * reacts to later changes.
+     *
+     * @param isOwnWrite whether this storage just wrote the file
+     */
+    private void rememberSnapshot(boolean isOwnWrite) {
+        synchronized (watchLock) {
+            if (isOwnWrite) {
+                generation++;
+            }
+            Path file = Path.of(filePath);
+            try {
+                known = Files.readAttributes(file, BasicFileAttributes.class);
+                readOffset = known.size();
+                knownTail = readTail(file, readOffset);
+            } catch (IOException e) {
+                known = null;
+                readOffset = 0;
+                knownTail = new byte[0];
+            }
+        }
+    }
+
+    /** Returns up to {@value #TAIL_BYTES} bytes of the file ending at {@code end}. */
+    private static byte[] readTail(Path file, long end) throws IOException {
+        int length = (int) Math.min(TAIL_BYTES, end);
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        try (FileChannel ch = FileChannel.open(file)) {
+            while (buf.hasRemaining() && ch.read(buf, end - length + buf.position()) > 0) {
+                // keep reading
+            }
+        }
+        return Arrays.copyOf(buf.array(), buf.position());
+    }
+
+    private static Snapshot readSnapshot(Path file) throws IOException {
+        Format found = BinarySaveFormat.isBinary(file) ? Format.BINARY : Format.TEXT;
+        int recordedNextId = found == Format.BINARY
+                ? BinarySaveFormat.readNextId(file)
+                : SaveFileLoader.readNextId(file);
+        boolean isLazy = found == Format.TEXT && recordedNextId > 0;
+        List<Yuri.Task> tasks = found == Format.BINARY
+                ? BinarySaveFormat.read(file)
+                : isLazy ? SaveFileLoader.index(file) : SaveFileLoader.load(file);
+        return new Snapshot(found, recordedNextId, tasks);
+    }
+
+    /* =========================
+       Internal: journal handling
+       ========================= */
+
+    private void appendRecord(String record) throws IOException {
+        appendRecords(List.of(record));
+    }
+
+    private void appendRecords(List<String> records) throws IOException {
+        if (journal == null) {
+            journal = new BufferedWriter(new OutputStreamWriter(
+                    Files.newOutputStream(journalPath, StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+                    StandardCharsets.UTF_8));
+        }
+        // counted as appended, so buffered records show up in stats before they are flushed
+        long bytes = 0;
+        for (String record : records) {
+            journal.write(record);
+            journal.write(System.lineSeparator());
+            bytes += utf8Length(record) + System.lineSeparator().length();
+        }
+        metrics.addBytesWritten(bytes);
+        if (isAutoFlush && flushDelayMs > 0 && flusher != null) {
+            scheduleFlush();
+        } else if (isAutoFlush) {
+            journal.flush();
+        }
+        journalRecords += records.size();
+    }
+
+    private void scheduleFlush() {
+        if (isFlushScheduled) {
+            return;
+        }
+        isFlushScheduled = true;
+        flusher.schedule(() -> {
+            synchronized (this) {
+                isFlushScheduled = false;
+                try {
+                    flush();
+                } catch (IOException e) {
+                    // records stay buffered; the next flush or close() writes them
+                }
+            }
+        }, flushDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void closeJournal() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    private boolean isCompacting() {
+        return pendingCompaction != null && !pendingCompaction.isDone();
+    }
+
+    private void awaitCompaction() {
+        if (pendingCompaction == null) {
+            return;
+        }
+        try {
+            pendingCompaction.get(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            // A failed compaction leaves both journals on disk; nothing is lost.
+        }
+        pendingCompaction = null;
+    }
+
+    /**
+     * Finishes the bookkeeping of a compaction that was cut short by a crash.
+     * If the tmp snapshot still exists the snapshot was never replaced, so the rotated
+     * journal is merged back in front of the current one; otherwise the snapshot already contains it.
+     */
+    private void recoverInterruptedCompaction() throws IOException {
+        boolean snapshotPending = Files.deleteIfExists(snapshotTmpPath);
+        if (Files.exists(rotatedJournalPath)) {
+            if (snapshotPending) {
+                appendJournalTo(rotatedJournalPath, journalPath);
+            }
+            Files.delete(rotatedJournalPath);
+        }
+    }
+
+    private static void appendJournalTo(Path older, Path current) throws IOException {
+        List<String> newer = Files.exists(current)
+                ? Files.readAllLines(current, StandardCharsets.UTF_8)
+                : List.of();
+        List<String> merged = new ArrayList<>(Files.readAllLines(older, StandardCharsets.UTF_8));
+        merged.addAll(newer);
+        Files.write(current, merged, StandardCharsets.UTF_8);
+    }
+
+    /** Applies the journal's records to {@code tasks}, collecting the tasks it adds in {@code added}. */
+    private int replayJournal(Path path, List<Yuri.Task> tasks, List<Yuri.Task> added) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        int records = 0;
+        for (String rec : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            if (rec.length() < 4) {
+                continue; // torn or empty trailing line
+            }
+            String kind = rec.substring(0, 1);
+            String arg = rec.substring(4);
+            records++;
+            if (REC_ADD.equals(kind)) {
+                Yuri.Task t = SaveFileLoader.parseLine(arg);
+                if (t != null) {
+                    tasks.add(t);
+                    added.add(t);
+                    nextId = Math.max(nextId, t.id + 1);
+                }
+                continue;
+            }
+            if (REC_INSERT.equals(kind)) {
+                insertRecord(arg, tasks);
+                continue;
+            }
+            if (REC_OCCURRENCE.equals(kind)) {
+                occurrenceRecord(arg, tasks);
+                continue;
+            }
+            int[] positions = parsePositions(arg.trim(), tasks.size());
+            if (positions == null) {
+                continue;
+            }
+            switch (kind) {
+                case REC_MARK:
+                    for (int idx : positions) {
+                        tasks.get(idx).mark();
+                    }
+                    break;
+                case REC_UNMARK:
+                    for (int idx : positions) {
+                        tasks.get(idx).unmark();
+                    }
+                    break;
+                case REC_DELETE:
+                    LazyTaskList.removePositions(tasks, positions);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return records;
+    }
+
+    /** Applies an insert record's {@code <position> | <save line>} to {@code tasks}. */
+    private void insertRecord(String arg, List<Yuri.Task> tasks) {
+        int bar = arg.indexOf('|');
+        if (bar < 0) {
+            return;
+        }
+        int pos;
+        try {
+            pos = Integer.parseInt(arg.substring(0, bar).trim());
+        } catch (NumberFormatException e) {
+            return;
+        }
+        Yuri.Task t = SaveFileLoader.parseLine(arg.substring(bar + 1).trim());
+        if (t != null && pos >= 0 && pos <= tasks.size()) {
+            tasks.add(pos, t);
+            nextId = Math.max(nextId, t.id + 1);
+        }
+    }
+
+    /** Applies an occurrence record's {@code <position> | <date or ->} to {@code tasks}. */
+    private static void occurrenceRecord(String arg, List<Yuri.Task> tasks) {
+        int bar = arg.indexOf('|');
+        if (bar < 0) {
+            return;
+        }
+        int pos;
+        LocalDate doneThrough;
+        try {
+            pos = Integer.parseInt(arg.substring(0, bar).trim());
+            String date = arg.substring(bar + 1).trim();
+            doneThrough = NO_OCCURRENCE.equals(date) ? null : LocalDate.parse(date);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return;
+        }
+        if (pos >= 0 && pos < tasks.size()) {
+            tasks.get(pos).setDoneThrough(doneThrough);
+        }
+    }
+
+    /** Formats ascending positions as comma-separated numbers, collapsing runs into {@code a-b}. */
+    static String formatPositions(int[] positions) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < positions.length; i++) {
+            int runEnd = i;
+            while (runEnd + 1 < positions.length && positions[runEnd + 1] == positions[runEnd] + 1) {
+                runEnd++;
+            }
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(positions[i]);
+            if (runEnd > i) {
+                sb.append('-').append(positions[runEnd]);
+            }
+            i = runEnd;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parses positions written by {@link #formatPositions(int[])}, dropping any outside
+     * {@code [0, size)}.
+     *
+     * @return ascending positions, or {@code null} if the text is malformed
+     */
+    static int[] parsePositions(String text, int size) {
+        BitSet selected = new BitSet();
+        try {
+            for (String item : text.split(",")) {
+                int dash = item.indexOf('-', 1);
+                int first = Integer.parseInt(dash < 0 ? item : item.substring(0, dash));
+                int last = dash < 0 ? first : Integer.parseInt(item.substring(dash + 1));
+                first = Math.max(first, 0);
+                last = Math.min(last, size - 1);
+                if (first <= last) {
+                    selected.set(first, last + 1);
+                }
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return selected.stream().toArray();
+    }
+
+    private void writeSnapshot(List<Yuri.Task> tasks, int nextId, Path target) throws IOException {
+        long start = System.nanoTime();
+        if (format == Format.BINARY) {
+            BinarySaveFormat.write(tasks, nextId, target);
+        } else {
+            // always UTF-8, which is what SaveFileLoader and the journal use
+            try (BufferedWriter out = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+                out.write(SaveFileLoader.NEXT_ID_HEADER + nextId);
+                out.write(System.lineSeparator());
+                for (Yuri.Task task : tasks) {
+                    assert task != null : "Individual task must not be null";
+                    out.write(saveLine(task));
+                    out.write(System.lineSeparator());
+                }
+            }
+        }
+        metrics.recordSnapshot(System.nanoTime() - start, Files.size(target));
+    }
+
+    /** Returns the number of bytes {@code s} takes in UTF-8, without encoding it. */
+    private static int utf8Length(String s) {
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                n++;
+            } else if (c < 0x800) {
+                n += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                n += 4;
+                i++;
+            } else {
+                // an unpaired surrogate is written as a single '?'
+                n += Character.isSurrogate(c) ? 1 : 3;
+            }
+        }
+        return n;
+    }
+
+    /** Returns the task's save-format line followed by its ID field, if it has an ID. */
+    private static String saveLine(Yuri.Task task) {
+        String line = task.toSaveFormat();
+        assert line != null : "toSaveFormat must not return null";
+        return task.id > 0 ? line + " | #" + task.id : line;
     }
 }
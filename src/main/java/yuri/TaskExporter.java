@@ -0,0 +1,379 @@
+package yuri;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Writes a list's tasks to a file in a format other programs read: CSV, JSON or iCalendar.
+ *
+ * <p>Tasks are streamed: each one is formatted into a reused builder, encoded as UTF-8 straight
+ * into a direct buffer and written through a {@link FileChannel} whenever the buffer fills, so the
+ * memory used does not grow with the number of tasks. The output goes to a temporary file next to
+ * the target that is moved into place once complete, so a failed export never leaves half a
+ * file behind.</p>
+ *
+ * <p>In iCalendar, todos and deadlines become {@code VTODO}s and events become all-day
+ * {@code VEVENT}s; recurring tasks carry an {@code RRULE} instead of being expanded, starting from
+ * their first occurrence that is not done yet.</p>
+ */
+final class TaskExporter {
+
+    /** Supported output formats, named as in the {@code export} command. */
+    enum Format {
+        CSV("csv"),
+        JSON("json"),
+        ICS("ics");
+
+        private final String word;
+
+        Format(String word) {
+            this.word = word;
+        }
+
+        /**
+         * Returns the format named by a word such as {@code "csv"}, ignoring case.
+         *
+         * @param word format name
+         * @return the format, or {@code null} if the word names none
+         */
+        static Format fromWord(String word) {
+            for (Format f : values()) {
+                if (f.word.equalsIgnoreCase(word)) {
+                    return f;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    /** Longest iCalendar content line in octets, not counting the line break. */
+    private static final int ICS_LINE_OCTETS = 75;
+    private static final String CSV_HEADER = "id,type,done,description,by,from,to,every,doneThrough";
+    private static final DateTimeFormatter ICS_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final DateTimeFormatter ICS_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private TaskExporter() {
+    }
+
+    /**
+     * Writes every task to {@code target} in the given format, replacing the file if it exists.
+     *
+     * @param tasks    tasks to export, in list order
+     * @param listName name of the list, which keeps iCalendar UIDs from different lists apart
+     * @param format   output format
+     * @param target   file to write
+     * @return number of tasks written
+     * @throws IOException if the file cannot be written
+     */
+    static int export(TaskStore tasks, String listName, Format format, Path target) throws IOException {
+        assert tasks != null && listName != null && format != null && target != null
+                : "Arguments must not be null";
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ChannelWriter out = new ChannelWriter(ch);
+            switch (format) {
+                case CSV:
+                    writeCsv(tasks, out);
+                    break;
+                case JSON:
+                    writeJson(tasks, out);
+                    break;
+                default:
+                    writeIcs(tasks, listName, out);
+            }
+            out.drain();
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        return tasks.size();
+    }
+
+    /* =========================
+       Internal: formats
+       ========================= */
+
+    private static void writeCsv(TaskStore tasks, ChannelWriter out) throws IOException {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(CSV_HEADER).append("\r\n");
+        for (int i = 0; i < tasks.size(); i++) {
+            Yuri.Task t = tasks.get(i);
+            sb.append(t.getId()).append(',').append(typeOf(t)).append(',').append(t.isDone).append(',');
+            appendCsvField(sb, t.getDescription());
+            sb.append(',');
+            if (t instanceof Yuri.Deadline) {
+                sb.append(((Yuri.Deadline) t).getBy());
+            }
+            sb.append(',');
+            if (t instanceof Yuri.Event) {
+                Yuri.Event e = (Yuri.Event) t;
+                sb.append(e.getFrom()).append(',').append(e.getTo());
+            } else {
+                sb.append(',');
+            }
+            sb.append(',');
+            if (t.getRecurrence() != null) {
+                sb.append(t.getRecurrence().word());
+            }
+            sb.append(',');
+            if (t.getDoneThrough() != null) {
+                sb.append(t.getDoneThrough());
+            }
+            sb.append("\r\n");
+            out.write(sb);
+            sb.setLength(0);
+        }
+    }
+
+    private static void writeJson(TaskStore tasks, ChannelWriter out) throws IOException {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append('[');
+        for (int i = 0; i < tasks.size(); i++) {
+            Yuri.Task t = tasks.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("{\"id\":").append(t.getId())
+                    .append(",\"type\":\"").append(typeOf(t))
+                    .append("\",\"done\":").append(t.isDone)
+                    .append(",\"description\":");
+            appendJsonString(sb, t.getDescription());
+            if (t instanceof Yuri.Deadline) {
+                sb.append(",\"by\":\"").append(((Yuri.Deadline) t).getBy()).append('"');
+            } else if (t instanceof Yuri.Event) {
+                Yuri.Event e = (Yuri.Event) t;
+                sb.append(",\"from\":\"").append(e.getFrom())
+                        .append("\",\"to\":\"").append(e.getTo()).append('"');
+            }
+            if (t.getRecurrence() != null) {
+                sb.append(",\"every\":\"").append(t.getRecurrence().word()).append('"');
+            }
+            if (t.getDoneThrough() != null) {
+                sb.append(",\"doneThrough\":\"").append(t.getDoneThrough()).append('"');
+            }
+            sb.append('}');
+            out.write(sb);
+            sb.setLength(0);
+        }
+        sb.append(tasks.size() == 0 ? "]\n" : "\n]\n");
+        out.write(sb);
+    }
+
+    private static void writeIcs(TaskStore tasks, String listName, ChannelWriter out) throws IOException {
+        String stamp = ZonedDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS).format(ICS_STAMP);
+        StringBuilder sb = new StringBuilder(512);
+        StringBuilder line = new StringBuilder(128);
+        appendIcsLine(sb, "BEGIN:VCALENDAR");
+        appendIcsLine(sb, "VERSION:2.0");
+        appendIcsLine(sb, "PRODID:-//Yuri//Tasks//EN");
+        for (int i = 0; i < tasks.size(); i++) {
+            Yuri.Task t = tasks.get(i);
+            String component = t instanceof Yuri.Event ? "VEVENT" : "VTODO";
+            appendIcsLine(sb, "BEGIN:" + component);
+            line.append("UID:");
+            if (t.getId() > 0) {
+                line.append(t.getId());
+            } else {
+                line.append("task-").append(i + 1);
+            }
+            appendIcsLine(sb, line.append('.').append(listName).append("@yuri"));
+            line.setLength(0);
+            appendIcsLine(sb, "DTSTAMP:" + stamp);
+            line.append("SUMMARY:");
+            appendIcsText(line, t.getDescription());
+            appendIcsLine(sb, line);
+            line.setLength(0);
+            // occurrences already done are left out by starting the series after them
+            LocalDate start = ReminderQueue.firstOpenDate(t);
+            if (t instanceof Yuri.Event) {
+                Yuri.Event e = (Yuri.Event) t;
+                appendIcsLine(sb, "DTSTART;VALUE=DATE:" + start.format(ICS_DATE));
+                // the end date of an all-day event is exclusive
+                LocalDate end = start.plusDays(ChronoUnit.DAYS.between(e.getFrom(), e.getTo()) + 1);
+                appendIcsLine(sb, "DTEND;VALUE=DATE:" + end.format(ICS_DATE));
+            } else if (t instanceof Yuri.Deadline && t.getRecurrence() != null) {
+                // a repeating VTODO recurs from DTSTART, and DUE must fall strictly after it
+                appendIcsLine(sb, "DTSTART;VALUE=DATE:" + start.format(ICS_DATE));
+                appendIcsLine(sb, "DURATION:P1D");
+            } else if (t instanceof Yuri.Deadline) {
+                appendIcsLine(sb, "DUE;VALUE=DATE:" + ((Yuri.Deadline) t).getBy().format(ICS_DATE));
+            }
+            if (t.getRecurrence() != null) {
+                appendIcsLine(sb, rrule(t.getRecurrence(), ReminderQueue.dateOf(t)));
+            }
+            if (!(t instanceof Yuri.Event)) {
+                appendIcsLine(sb, t.isDone ? "STATUS:COMPLETED" : "STATUS:NEEDS-ACTION");
+            }
+            appendIcsLine(sb, "END:" + component);
+            out.write(sb);
+            sb.setLength(0);
+        }
+        appendIcsLine(sb, "END:VCALENDAR");
+        out.write(sb);
+    }
+
+    /** Returns the iCalendar rule for a series starting on {@code anchor}. */
+    private static String rrule(Recurrence every, LocalDate anchor) {
+        switch (every) {
+            case DAY:
+                return "RRULE:FREQ=DAILY";
+            case WEEK:
+                return "RRULE:FREQ=WEEKLY";
+            default:
+                if (anchor.getDayOfMonth() < 29) {
+                    return "RRULE:FREQ=MONTHLY";
+                }
+                // months too short for the anchor's day fall on their last day, see Recurrence
+                StringBuilder days = new StringBuilder("RRULE:FREQ=MONTHLY;BYMONTHDAY=28");
+                for (int d = 29; d <= anchor.getDayOfMonth(); d++) {
+                    days.append(',').append(d);
+                }
+                return days.append(";BYSETPOS=-1").toString();
+        }
+    }
+
+    private static String typeOf(Yuri.Task t) {
+        return t instanceof Yuri.Deadline ? "deadline" : t instanceof Yuri.Event ? "event" : "todo";
+    }
+
+    /** Appends a CSV field, quoted as in RFC 4180 if it holds a comma, quote or line break. */
+    private static void appendCsvField(StringBuilder sb, String s) {
+        boolean needsQuotes = false;
+        for (int i = 0; i < s.length() && !needsQuotes; i++) {
+            char c = s.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!needsQuotes) {
+            sb.append(s);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    private static void appendJsonString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    /** Appends text escaped as an iCalendar TEXT value. */
+    private static void appendIcsText(StringBuilder sb, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' || c == ';' || c == ',') {
+                sb.append('\\').append(c);
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else if (c != '\r') {
+                sb.append(c);
+            }
+        }
+    }
+
+    /**
+     * Appends a content line ending in CRLF, folded so no line is longer than
+     * {@value #ICS_LINE_OCTETS} UTF-8 octets. A fold never splits a character.
+     */
+    private static void appendIcsLine(StringBuilder sb, CharSequence line) {
+        int octets = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            // a surrogate pair counts as 4 octets on its high half, so it is never split
+            int n = c < 0x80 ? 1 : c < 0x800 ? 2 : Character.isHighSurrogate(c) ? 4
+                    : Character.isLowSurrogate(c) ? 0 : 3;
+            if (octets + n > ICS_LINE_OCTETS) {
+                sb.append("\r\n ");
+                octets = 1;
+            }
+            sb.append(c);
+            octets += n;
+        }
+        sb.append("\r\n");
+    }
+
+    /* =========================
+       Internal: output
+       ========================= */
+
+    /** Encodes text as UTF-8 into a direct buffer that is written out whenever it fills. */
+    private static final class ChannelWriter {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        ChannelWriter(FileChannel ch) {
+            this.ch = ch;
+        }
+
+        /** Encodes {@code text}, which must not end in the middle of a surrogate pair. */
+        void write(CharSequence text) throws IOException {
+            CharBuffer in = CharBuffer.wrap(text);
+            while (encoder.encode(in, buf, true).isOverflow()) {
+                drain();
+            }
+            while (encoder.flush(buf).isOverflow()) {
+                drain();
+            }
+            encoder.reset();
+        }
+
+        /** Writes everything encoded so far to the channel. */
+        void drain() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                ch.write(buf);
+            }
+            buf.clear();
+        }
+    }
+}
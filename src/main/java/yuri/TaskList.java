@@ -1,17 +1,61 @@
 package yuri;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 /**
  * Holds and manages the list of tasks in memory.
  * Provides basic operations such as add, remove, mark, and unmark.
+ *
+ * <p>Descriptions are kept in an inverted word index so {@link #find(String)} only touches
+ * tasks that share a word with the query. Each task gets an internal sequence number in list
+ * order; posting lists hold sequence numbers and a Fenwick tree over the live sequence numbers
+ * turns them back into list positions, so removing a task never rewrites other postings.</p>
+ *
+ * <p>Deadlines that are not yet done are also kept in a date index keyed by epoch day, so
+ * {@link #dueOn(LocalDate)} and {@link #dueBefore(LocalDate)} cost O(log n + k). Recurring
+ * deadlines have no single date to key by; they sit in one posting list of their own, and each
+ * due query works out the open occurrence it needs from every rule in O(r) for r rules.</p>
+ *
+ * <p>A hash index maps each task's stable ID to its sequence number, so {@link #indexOfId(int)}
+ * is one hash lookup plus one Fenwick query and survives removals without renumbering.</p>
+ *
+ * <p>The three indexes are built on the first query that needs them rather than up front, so a
+ * list created from a lazily parsed save file does not parse every task just to open. Until then
+ * a task is parsed only when a command touches it, and ID lookups binary-search the list, since
+ * IDs only ever grow in list order.</p>
  */
-public class TaskList {
+public class TaskList implements TaskStore {
+
+    private static final String OR_MARKER = "/or";
+    /** Bulk removals larger than this rebuild the indexes instead of updating them per task. */
+    private static final int REINDEX_THRESHOLD = 64;
 
     private final List<Yuri.Task> tasks;
 
+    /** Sequence number of the task at each position, parallel to {@code tasks}. */
+    private int[] seqAt = new int[16];
+    private int nextSeq;
+    /** Fenwick tree over sequence numbers; 1 for live sequence numbers, 0 for removed ones. */
+    private int[] live = new int[17];
+    private final NavigableMap<String, Postings> index = new TreeMap<>();
+    /** Pending deadlines: epoch day of the due date to sequence numbers. */
+    private final NavigableMap<Long, Postings> dueIndex = new TreeMap<>();
+    /** Pending recurring deadlines, which {@code dueIndex} leaves out. */
+    private final Postings recurringDue = new Postings();
+    /** Stable task ID to sequence number, for tasks that have an ID. */
+    private final Map<Integer, Integer> seqById = new HashMap<>();
+    /** Whether the word, due-date and ID indexes are up to date; see {@link #ensureIndexed()}. */
+    private volatile boolean isIndexed = true;
+
     /**
      * Constructs an empty task list.
      */
@@ -21,10 +65,19 @@ public class TaskList {
 
     /**
      * Constructs a task list initialized with the given tasks.
+     * A list loaded lazily by {@link Storage#load()} is taken over rather than copied, so its
+     * tasks stay unparsed until used.
      */
     public TaskList(List<Yuri.Task> initial) {
         assert initial != null : "Initial task list must not be null";
-        this.tasks = new ArrayList<>(initial);
+        this.tasks = initial instanceof LazyTaskList ? initial : new ArrayList<>(initial);
+        seqAt = new int[Math.max(16, tasks.size())];
+        for (int i = 0; i < tasks.size(); i++) {
+            seqAt[i] = i;
+        }
+        nextSeq = tasks.size();
+        rebuildLive();
+        isIndexed = tasks.isEmpty();
     }
 
     /**
@@ -32,8 +85,24 @@ public class TaskList {
      *
      * @param t task to add
      */
+    @Override
     public void add(Yuri.Task t) {
+        int seq = nextSeq++;
+        if (tasks.size() == seqAt.length) {
+            seqAt = Arrays.copyOf(seqAt, seqAt.length * 2);
+        }
+        seqAt[tasks.size()] = seq;
         tasks.add(t);
+        if (seq + 1 >= live.length) {
+            rebuildLive();
+        } else {
+            fenwickAdd(seq, 1);
+        }
+        if (isIndexed) {
+            indexTask(t, seq);
+            indexDue(t, seq);
+            indexId(t, seq);
+        }
     }
 
     /**
@@ -43,11 +112,27 @@ public class TaskList {
      * @return the task at {@code idx0}
      * @throws IndexOutOfBoundsException if {@code idx0} is out of range
      */
+    @Override
     public Yuri.Task get(int idx0) {
         assert idx0 >= 0 && idx0 < tasks.size() : "Index out of bounds";
         return tasks.get(idx0);
     }
 
+    /**
+     * Returns the current position of the task with the given stable ID.
+     *
+     * @param id stable ID of the task
+     * @return zero-based position of the task, or -1 if no task has that ID
+     */
+    @Override
+    public int indexOfId(int id) {
+        if (!isIndexed) {
+            return searchId(id);
+        }
+        Integer seq = seqById.get(id);
+        return seq == null ? -1 : fenwickPrefix(seq) - 1;
+    }
+
     /**
      * Removes and returns the task at the given zero-based index.
      *
@@ -55,9 +140,150 @@ public class TaskList {
      * @return the removed task
      * @throws IndexOutOfBoundsException if {@code idx0} is out of range
      */
+    @Override
     public Yuri.Task remove(int idx0) {
         assert idx0 >= 0 && idx0 < tasks.size() : "Index out of bounds";
-        return tasks.remove(idx0);
+        Yuri.Task removed = tasks.remove(idx0);
+        int seq = seqAt[idx0];
+        System.arraycopy(seqAt, idx0 + 1, seqAt, idx0, tasks.size() - idx0);
+        fenwickAdd(seq, -1);
+        if (isIndexed) {
+            unindexTask(removed, seq);
+            unindexDue(removed, seq);
+            seqById.remove(removed.id);
+        }
+        if (nextSeq > 2 * tasks.size() + 1024) {
+            renumber();
+        }
+        return removed;
+    }
+
+    /**
+     * Removes the tasks at the given positions in a single pass over the list.
+     * Small batches are unindexed task by task; larger ones rebuild the indexes from the
+     * remaining tasks, which is cheaper than removing each from its postings.
+     *
+     * @param positions ascending, distinct zero-based positions to remove
+     * @return the removed tasks, in list order
+     */
+    @Override
+    public List<Yuri.Task> removeAll(int[] positions) {
+        List<Yuri.Task> removed = new ArrayList<>(positions.length);
+        boolean isRebuild = positions.length > REINDEX_THRESHOLD;
+        int n = tasks.size();
+        int w = 0;
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            if (k < positions.length && positions[k] == i) {
+                assert k == 0 || positions[k - 1] < i : "Positions must be ascending";
+                k++;
+                Yuri.Task t = tasks.get(i);
+                removed.add(t);
+                if (!isRebuild) {
+                    if (isIndexed) {
+                        unindexTask(t, seqAt[i]);
+                        unindexDue(t, seqAt[i]);
+                        seqById.remove(t.id);
+                    }
+                    fenwickAdd(seqAt[i], -1);
+                }
+                continue;
+            }
+            seqAt[w] = seqAt[i];
+            w++;
+        }
+        assert k == positions.length : "Position out of bounds";
+        LazyTaskList.removePositions(tasks, positions);
+        if (isRebuild) {
+            if (isIndexed) {
+                reindex();
+            } else {
+                renumberUnindexed();
+            }
+        } else if (nextSeq > 2 * tasks.size() + 1024) {
+            renumber();
+        }
+        return removed;
+    }
+
+    /**
+     * Inserts tasks at the given final positions. Sequence numbers must follow list order, so
+     * the list is renumbered once, which remaps existing postings without re-tokenizing anything.
+     *
+     * @param positions ascending, distinct zero-based positions in the resulting list
+     * @param inserted  tasks to insert, one per position
+     */
+    @Override
+    public void insertAll(int[] positions, List<Yuri.Task> inserted) {
+        assert positions.length == inserted.size() : "One position per inserted task";
+        int n = tasks.size();
+        int total = n + positions.length;
+        LazyTaskList.insertPositions(tasks, positions, inserted);
+        if (seqAt.length < total) {
+            seqAt = Arrays.copyOf(seqAt, Math.max(total, seqAt.length * 2));
+        }
+        int src = n - 1;
+        for (int i = total - 1, k = positions.length - 1; k >= 0; i--) {
+            if (positions[k] == i) {
+                seqAt[i] = -1;
+                k--;
+            } else {
+                seqAt[i] = seqAt[src--];
+            }
+        }
+        renumber();
+        if (isIndexed) {
+            for (int k = 0; k < positions.length; k++) {
+                Yuri.Task t = inserted.get(k);
+                indexTask(t, positions[k]);
+                indexDue(t, positions[k]);
+                indexId(t, positions[k]);
+            }
+        }
+    }
+
+    /**
+     * Marks the tasks at the given zero-based positions as done.
+     *
+     * @param positions zero-based positions of the tasks to mark
+     */
+    @Override
+    public void markAll(int[] positions) {
+        for (int pos : positions) {
+            mark(pos);
+        }
+    }
+
+    /**
+     * Marks the tasks at the given zero-based positions as not done.
+     *
+     * @param positions zero-based positions of the tasks to unmark
+     */
+    @Override
+    public void unmarkAll(int[] positions) {
+        for (int pos : positions) {
+            unmark(pos);
+        }
+    }
+
+    /**
+     * Returns the positions of tasks that are done.
+     *
+     * @return ascending zero-based positions (possibly empty)
+     */
+    @Override
+    public int[] donePositions() {
+        int[] hits = new int[16];
+        int n = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            if (tasks.get(i).isDone) {
+                if (n == hits.length) {
+                    hits = Arrays.copyOf(hits, n * 2);
+                }
+                hits[n++] = i;
+            }
+        }
+        return Arrays.copyOf(hits, n);
     }
 
     /**
@@ -66,8 +292,13 @@ public class TaskList {
      * @param idx0 zero-based index of the task to mark
      * @throws IndexOutOfBoundsException if {@code idx0} is out of range
      */
+    @Override
     public void mark(int idx0) {
-        tasks.get(idx0).mark();
+        Yuri.Task t = tasks.get(idx0);
+        t.mark();
+        if (isIndexed) {
+            unindexDue(t, seqAt[idx0]);
+        }
     }
 
     /**
@@ -76,30 +307,150 @@ public class TaskList {
      * @param idx0 zero-based index of the task to unmark
      * @throws IndexOutOfBoundsException if {@code idx0} is out of range
      */
+    @Override
     public void unmark(int idx0) {
-        tasks.get(idx0).unmark();
+        Yuri.Task t = tasks.get(idx0);
+        t.unmark();
+        if (isIndexed) {
+            indexDue(t, seqAt[idx0]);
+        }
+    }
+
+    /**
+     * Sets the last done occurrence of the repeating task at the given zero-based index. The
+     * task stays pending as a whole, so no index changes. Does nothing for a task that happens once.
+     *
+     * @param idx0 zero-based index of the task
+     * @param day  last done occurrence, or {@code null} to open them all
+     */
+    @Override
+    public void setDoneThrough(int idx0, LocalDate day) {
+        tasks.get(idx0).setDoneThrough(day);
     }
 
     /**
-     * Returns all tasks whose description contains the given keyword (case-insensitive).
+     * Returns all tasks matching the given query (case-insensitive).
      *
-     * @param keyword keyword to search for
+     * @param keyword query to search for, see {@link #findPositions(String)}
      * @return list of matching tasks (possibly empty)
      * @throws IllegalArgumentException if keyword is null or blank
      */
+    @Override
     public java.util.List<Yuri.Task> find(String keyword) {
-        if (keyword == null || keyword.trim().isEmpty()) {
+        int[] positions = findPositions(keyword);
+        java.util.List<Yuri.Task> results = new java.util.ArrayList<>(positions.length);
+        for (int pos : positions) {
+            results.add(tasks.get(pos));
+        }
+        return results;
+    }
+
+    /**
+     * Returns the zero-based positions of tasks matching the given query, in list order.
+     * A query is one or more groups separated by a standalone {@code /or}; a task matches a group
+     * when every word of the group is a prefix of some word in its description (case-insensitive).
+     * Text inside a word does not match, so {@code ook} does not find "book".
+     * For example {@code read book /or lunch} matches tasks containing both "read" and "book",
+     * or containing "lunch".
+     *
+     * @param query query to search for
+     * @return ascending zero-based positions of matching tasks (possibly empty)
+     * @throws IllegalArgumentException if query is null or blank
+     */
+    @Override
+    public int[] findPositions(String query) {
+        if (query == null || query.trim().isEmpty()) {
             throw new IllegalArgumentException("Keyword cannot be empty.");
         }
-        String needle = keyword.toLowerCase();
-        java.util.List<Yuri.Task> results = new java.util.ArrayList<>();
-        for (Yuri.Task t : tasks) {
-            String desc = t.getDescription();
-            if (desc != null && desc.toLowerCase().contains(needle)) {
-                results.add(t);
+        ensureIndexed();
+        int[] seqs = new int[0];
+        for (List<String> group : queryGroups(query)) {
+            seqs = union(seqs, matchAll(group));
+        }
+        int[] positions = new int[seqs.length];
+        for (int i = 0; i < seqs.length; i++) {
+            positions[i] = fenwickPrefix(seqs[i]) - 1;
+        }
+        return positions;
+    }
+
+    /**
+     * Returns the positions of deadlines due on the given day that are not done yet, including
+     * recurring deadlines with an open occurrence on that day.
+     *
+     * @param day due date to look up
+     * @return ascending zero-based positions (possibly empty)
+     */
+    @Override
+    public int[] dueOn(LocalDate day) {
+        assert day != null : "day must not be null";
+        ensureIndexed();
+        Postings p = dueIndex.get(day.toEpochDay());
+        int[] positions = p == null ? new int[0] : toPositions(List.of(p));
+        if (recurringDue.size == 0) {
+            return positions;
+        }
+        int n = positions.length;
+        for (int i = 0; i < recurringDue.size; i++) {
+            int pos = fenwickPrefix(recurringDue.seqs[i]) - 1;
+            Yuri.Deadline d = (Yuri.Deadline) tasks.get(pos);
+            if (d.getRecurrence().nextOpen(d.getBy(), d.getDoneThrough(), day).equals(day)) {
+                if (n == positions.length) {
+                    positions = Arrays.copyOf(positions, Math.max(8, n * 2));
+                }
+                positions[n++] = pos;
             }
         }
-        return results;
+        positions = Arrays.copyOf(positions, n);
+        Arrays.sort(positions);
+        return positions;
+    }
+
+    /**
+     * Returns the positions of deadlines due strictly before the given day that are not done yet,
+     * ordered by due date and then by list position. A recurring deadline is listed once, dated
+     * by its first open occurrence, if that is before the day.
+     *
+     * @param day exclusive upper bound on the due date
+     * @return zero-based positions (possibly empty)
+     */
+    @Override
+    public int[] dueBefore(LocalDate day) {
+        assert day != null : "day must not be null";
+        ensureIndexed();
+        NavigableMap<Long, Postings> due = dueIndex.headMap(day.toEpochDay(), false);
+        if (recurringDue.size == 0) {
+            return toPositions(due.values());
+        }
+        // due day in the high half and position in the low half, so one sort orders both
+        long[] keys = new long[16];
+        int n = 0;
+        for (Map.Entry<Long, Postings> e : due.entrySet()) {
+            Postings p = e.getValue();
+            for (int i = 0; i < p.size; i++) {
+                if (n == keys.length) {
+                    keys = Arrays.copyOf(keys, n * 2);
+                }
+                keys[n++] = (e.getKey() << 32) | (fenwickPrefix(p.seqs[i]) - 1);
+            }
+        }
+        for (int i = 0; i < recurringDue.size; i++) {
+            int pos = fenwickPrefix(recurringDue.seqs[i]) - 1;
+            Yuri.Deadline d = (Yuri.Deadline) tasks.get(pos);
+            LocalDate open = d.getRecurrence().nextOpen(d.getBy(), d.getDoneThrough(), d.getBy());
+            if (open.isBefore(day)) {
+                if (n == keys.length) {
+                    keys = Arrays.copyOf(keys, n * 2);
+                }
+                keys[n++] = (open.toEpochDay() << 32) | pos;
+            }
+        }
+        Arrays.sort(keys, 0, n);
+        int[] positions = new int[n];
+        for (int i = 0; i < n; i++) {
+            positions[i] = (int) keys[i];
+        }
+        return positions;
     }
 
     /**
@@ -107,6 +458,7 @@ public class TaskList {
      *
      * @return task count
      */
+    @Override
     public int size() {
         return tasks.size();
     }
@@ -116,7 +468,425 @@ public class TaskList {
      *
      * @return unmodifiable list view of tasks
      */
+    @Override
     public List<Yuri.Task> all() {
         return Collections.unmodifiableList(tasks);
     }
+
+    /**
+     * Returns a copy of the list of task references. Done flags are still shared with the live
+     * tasks; storage journals record done states absolutely, so replay converges regardless.
+     *
+     * @return copy of the current task references
+     */
+    @Override
+    public List<Yuri.Task> snapshot() {
+        if (tasks instanceof LazyTaskList) {
+            // copying the offsets keeps unparsed tasks unparsed until the compactor writes them
+            return Collections.unmodifiableList(((LazyTaskList) tasks).copy());
+        }
+        return Collections.unmodifiableList(new ArrayList<>(tasks));
+    }
+
+    /**
+     * Passes the ID and date of each pending deadline and event to {@code sink}. Tasks of a lazily
+     * loaded save file that have not been read yet are read from their line and stay unparsed.
+     *
+     * @param sink receives each task's ID and date, in list order
+     */
+    @Override
+    public void forEachPendingDate(TaskStore.DateSink sink) {
+        if (tasks instanceof LazyTaskList) {
+            ((LazyTaskList) tasks).forEachPendingDate(sink);
+            return;
+        }
+        for (Yuri.Task t : tasks) {
+            pendingDate(t, sink);
+        }
+    }
+
+    /** Passes a built task's ID and date to {@code sink} if it is a pending deadline or event. */
+    static void pendingDate(Yuri.Task t, TaskStore.DateSink sink) {
+        LocalDate date = ReminderQueue.dateOf(t);
+        if (date != null && !t.isDone && t.id > 0) {
+            sink.accept(t.id, date.toEpochDay());
+        }
+    }
+
+    /* =========================
+       Internal: inverted index
+       ========================= */
+
+    /** Splits text into distinct lowercase words made of letters and digits. */
+    static List<String> tokens(String text) {
+        List<String> out = new ArrayList<>();
+        if (text == null) {
+            return out;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                String token = text.substring(start, i).toLowerCase();
+                if (!out.contains(token)) {
+                    out.add(token);
+                }
+                start = -1;
+            }
+        }
+        return out;
+    }
+
+    /** Splits a query into its {@code /or} groups, each a list of word prefixes. */
+    static List<List<String>> queryGroups(String query) {
+        List<List<String>> groups = new ArrayList<>();
+        for (String group : splitGroups(query)) {
+            groups.add(tokens(group));
+        }
+        return groups;
+    }
+
+    /** Splits on {@code /or} only where it stands alone, so {@code a/orb} stays one group. */
+    private static List<String> splitGroups(String query) {
+        List<String> groups = new ArrayList<>();
+        int from = 0;
+        int at = -1;
+        while ((at = indexOfIgnoreCase(query, OR_MARKER, at + 1)) >= 0) {
+            int end = at + OR_MARKER.length();
+            boolean isStandalone = (at == 0 || Character.isWhitespace(query.charAt(at - 1)))
+                    && (end == query.length() || Character.isWhitespace(query.charAt(end)));
+            if (isStandalone) {
+                groups.add(query.substring(from, at));
+                from = end;
+            }
+        }
+        groups.add(query.substring(from));
+        return groups;
+    }
+
+    private static int indexOfIgnoreCase(String text, String word, int from) {
+        for (int i = from; i + word.length() <= text.length(); i++) {
+            if (text.regionMatches(true, i, word, 0, word.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void indexDue(Yuri.Task t, int seq) {
+        if (t instanceof Yuri.Deadline && !t.isDone && t.getRecurrence() != null) {
+            recurringDue.insert(seq);
+        } else if (t instanceof Yuri.Deadline && !t.isDone) {
+            long day = ((Yuri.Deadline) t).getBy().toEpochDay();
+            dueIndex.computeIfAbsent(day, k -> new Postings()).insert(seq);
+        }
+    }
+
+    private void unindexDue(Yuri.Task t, int seq) {
+        if (t instanceof Yuri.Deadline && t.getRecurrence() != null) {
+            recurringDue.remove(seq);
+        } else if (t instanceof Yuri.Deadline) {
+            long day = ((Yuri.Deadline) t).getBy().toEpochDay();
+            Postings p = dueIndex.get(day);
+            if (p != null && p.remove(seq) && p.size == 0) {
+                dueIndex.remove(day);
+            }
+        }
+    }
+
+    private int[] toPositions(Collection<Postings> groups) {
+        int total = 0;
+        for (Postings p : groups) {
+            total += p.size;
+        }
+        int[] positions = new int[total];
+        int n = 0;
+        for (Postings p : groups) {
+            for (int i = 0; i < p.size; i++) {
+                positions[n++] = fenwickPrefix(p.seqs[i]) - 1;
+            }
+        }
+        return positions;
+    }
+
+    private void indexTask(Yuri.Task t, int seq) {
+        for (String token : tokens(t.getDescription())) {
+            index.computeIfAbsent(token, k -> new Postings()).append(seq);
+        }
+    }
+
+    private void unindexTask(Yuri.Task t, int seq) {
+        for (String token : tokens(t.getDescription())) {
+            Postings p = index.get(token);
+            if (p != null && p.remove(seq) && p.size == 0) {
+                index.remove(token);
+            }
+        }
+    }
+
+    private void indexId(Yuri.Task t, int seq) {
+        if (t.id > 0) {
+            seqById.put(t.id, seq);
+        }
+    }
+
+    /**
+     * Builds the indexes if they were deferred. Queries may run concurrently under a read lock,
+     * so the first one to get here builds them while the others wait.
+     */
+    private void ensureIndexed() {
+        if (isIndexed) {
+            return;
+        }
+        synchronized (this) {
+            if (!isIndexed) {
+                reindex();
+            }
+        }
+    }
+
+    /** Finds a task by ID while the ID index is deferred, parsing only the tasks probed. */
+    private int searchId(int id) {
+        if (id <= 0) {
+            return -1;
+        }
+        int lo = 0;
+        int hi = tasks.size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int midId = tasks.get(mid).id;
+            if (midId < id) {
+                lo = mid + 1;
+            } else if (midId > id) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /** Rebuilds all indexes from scratch, numbering tasks 0..size-1. */
+    private void reindex() {
+        index.clear();
+        dueIndex.clear();
+        recurringDue.clear();
+        seqById.clear();
+        if (seqAt.length < tasks.size()) {
+            seqAt = new int[Math.max(16, tasks.size())];
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            seqAt[i] = i;
+            indexTask(tasks.get(i), i);
+            indexDue(tasks.get(i), i);
+            indexId(tasks.get(i), i);
+        }
+        nextSeq = tasks.size();
+        rebuildLive();
+        isIndexed = true;
+    }
+
+    /** Numbers tasks 0..size-1 without building the deferred indexes. */
+    private void renumberUnindexed() {
+        for (int i = 0; i < tasks.size(); i++) {
+            seqAt[i] = i;
+        }
+        nextSeq = tasks.size();
+        rebuildLive();
+    }
+
+    /** Sequence numbers of tasks having a word that starts with each of the given prefixes. */
+    private int[] matchAll(List<String> prefixes) {
+        if (prefixes.isEmpty()) {
+            return new int[0];
+        }
+        int[] result = null;
+        for (String prefix : prefixes) {
+            int[] hits = matchPrefix(prefix);
+            result = result == null ? hits : intersect(result, hits);
+            if (result.length == 0) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private int[] matchPrefix(String prefix) {
+        Map<String, Postings> words = index.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (words.size() == 1) {
+            Postings p = words.values().iterator().next();
+            return Arrays.copyOf(p.seqs, p.size);
+        }
+        int total = 0;
+        for (Postings p : words.values()) {
+            total += p.size;
+        }
+        int[] all = new int[total];
+        int n = 0;
+        for (Postings p : words.values()) {
+            System.arraycopy(p.seqs, 0, all, n, p.size);
+            n += p.size;
+        }
+        Arrays.sort(all);
+        return dedupe(all);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        int[] out = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length || j < b.length) {
+            if (j >= b.length || (i < a.length && a[i] < b[j])) {
+                out[n++] = a[i++];
+            } else if (i >= a.length || b[j] < a[i]) {
+                out[n++] = b[j++];
+            } else {
+                out[n++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int[] dedupe(int[] sorted) {
+        int n = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (n == 0 || sorted[n - 1] != sorted[i]) {
+                sorted[n++] = sorted[i];
+            }
+        }
+        return n == sorted.length ? sorted : Arrays.copyOf(sorted, n);
+    }
+
+    /**
+     * Reassigns sequence numbers to 0..size-1, once removed numbers dominate the range or after
+     * an insertion; positions holding -1 are newly inserted tasks not in any index yet.
+     */
+    private void renumber() {
+        int[] newSeq = new int[nextSeq];
+        Arrays.fill(newSeq, -1);
+        for (int i = 0; i < tasks.size(); i++) {
+            if (seqAt[i] >= 0) {
+                newSeq[seqAt[i]] = i;
+            }
+            seqAt[i] = i;
+        }
+        for (Postings p : index.values()) {
+            p.remap(newSeq);
+        }
+        for (Postings p : dueIndex.values()) {
+            p.remap(newSeq);
+        }
+        recurringDue.remap(newSeq);
+        for (Map.Entry<Integer, Integer> e : seqById.entrySet()) {
+            e.setValue(newSeq[e.getValue()]);
+        }
+        nextSeq = tasks.size();
+        rebuildLive();
+    }
+
+    /** Rebuilds the Fenwick tree in linear time with room to grow. */
+    private void rebuildLive() {
+        live = new int[Math.max(17, nextSeq * 2 + 1)];
+        for (int i = 0; i < tasks.size(); i++) {
+            live[seqAt[i] + 1] = 1;
+        }
+        for (int i = 1; i < live.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < live.length) {
+                live[parent] += live[i];
+            }
+        }
+    }
+
+    private void fenwickAdd(int seq, int delta) {
+        for (int i = seq + 1; i < live.length; i += i & -i) {
+            live[i] += delta;
+        }
+    }
+
+    /** Number of live sequence numbers less than or equal to {@code seq}. */
+    private int fenwickPrefix(int seq) {
+        int sum = 0;
+        for (int i = seq + 1; i > 0; i -= i & -i) {
+            sum += live[i];
+        }
+        return sum;
+    }
+
+    /** Ascending list of sequence numbers of tasks containing one word. */
+    private static final class Postings {
+        private int[] seqs = new int[2];
+        private int size;
+
+        void append(int seq) {
+            if (size > 0 && seqs[size - 1] >= seq) {
+                insert(seq);
+                return;
+            }
+            if (size == seqs.length) {
+                seqs = Arrays.copyOf(seqs, size * 2);
+            }
+            seqs[size++] = seq;
+        }
+
+        void insert(int seq) {
+            int at = Arrays.binarySearch(seqs, 0, size, seq);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == seqs.length) {
+                seqs = Arrays.copyOf(seqs, size * 2);
+            }
+            System.arraycopy(seqs, at, seqs, at + 1, size - at);
+            seqs[at] = seq;
+            size++;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void remap(int[] newSeq) {
+            for (int i = 0; i < size; i++) {
+                seqs[i] = newSeq[seqs[i]];
+            }
+        }
+
+        boolean remove(int seq) {
+            int at = Arrays.binarySearch(seqs, 0, size, seq);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(seqs, at + 1, seqs, at, size - at - 1);
+            size--;
+            return true;
+        }
+    }
 }
@@ -0,0 +1,265 @@
+package yuri;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Named task lists, each kept in its own file, with a bounded LRU cache of the loaded ones.
+ * The list called {@value #DEFAULT_LIST} lives in the main save file; every other list gets a file
+ * from {@link Storage#forList(String)}. Opening a list that is not cached loads it, and once more
+ * than {@code capacity} lists are loaded the least recently opened one is evicted: buffered
+ * journal records of a dirty list are flushed and its files closed, so it reloads intact.
+ *
+ * <p>Batch and GUI flush settings, and watching for changes made by other programs, apply to every
+ * loaded list, including ones loaded later.
+ * Not thread-safe; callers serialize access as they do for the tasks themselves.</p>
+ */
+final class TaskLists {
+
+    /** Name of the list kept in the main save file. */
+    static final String DEFAULT_LIST = "main";
+
+    /** Number of lists kept loaded unless configured otherwise. */
+    static final int DEFAULT_CAPACITY = 16;
+
+    /** A loaded list: where it is saved, its tasks, its undo history and its pending reminders. */
+    static final class Loaded {
+        final String name;
+        final Storage storage;
+        /** Replaced when another program rewrites the list's file; see {@link #applyExternalChange}. */
+        TaskStore tasks;
+        final UndoLog undoLog;
+        final ReminderQueue reminders;
+        /** Whether changes may sit in the journal's buffer; see {@link #flush()}. */
+        boolean isDirty;
+
+        private Loaded(String name, Storage storage, TaskStore tasks) {
+            this.name = name;
+            this.storage = storage;
+            this.tasks = tasks;
+            this.undoLog = new UndoLog(Yuri.UNDO_LIMIT);
+            this.reminders = new ReminderQueue(ReminderQueue.configuredLeadDays());
+        }
+    }
+
+    private final Storage mainStorage;
+    private final Metrics metrics;
+    private final Consumer<String> onError;
+    private final Map<String, Loaded> cache;
+    private boolean isAutoFlush = true;
+    private long flushDelayMs;
+    private boolean isWatching;
+
+    /**
+     * Creates the set of lists around the main save file.
+     *
+     * @param mainStorage storage of the {@value #DEFAULT_LIST} list
+     * @param capacity    maximum number of lists kept loaded
+     * @param metrics     measurements every loaded list's storage reports to
+     * @param onError     receives messages about lists that failed to load or to close
+     */
+    TaskLists(Storage mainStorage, int capacity, Metrics metrics, Consumer<String> onError) {
+        assert mainStorage != null && metrics != null && onError != null : "Arguments must not be null";
+        assert capacity > 0 : "capacity must be positive";
+        this.mainStorage = mainStorage;
+        this.metrics = metrics;
+        this.onError = onError;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Loaded> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                close(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the named list, loading it if it is not cached. A list that does not exist yet is
+     * created empty. If loading fails the error is reported and the list starts empty.
+     *
+     * @param name list name
+     * @return the loaded list, now the most recently used one
+     */
+    Loaded open(String name) {
+        Loaded list = cache.get(name);
+        if (list != null) {
+            return list;
+        }
+        Storage storage = DEFAULT_LIST.equals(name) ? mainStorage : mainStorage.forList(name);
+        storage.setMetrics(metrics);
+        List<Yuri.Task> loaded;
+        try {
+            storage.setAutoFlush(isAutoFlush);
+            storage.setFlushDelay(flushDelayMs);
+            loaded = storage.load();
+        } catch (IOException e) {
+            onError.accept("Error loading list " + name + ": " + e.getMessage());
+            loaded = List.of();
+        }
+        list = new Loaded(name, storage, newStore(loaded));
+        cache.put(name, list);
+        if (isWatching) {
+            watch(list);
+        }
+        return list;
+    }
+
+    /**
+     * Watches the files of every loaded list, and of lists loaded later, for changes made by other
+     * programs. Such changes are applied by {@link #applyExternalChange(Loaded)}.
+     */
+    void watch() {
+        isWatching = true;
+        for (Loaded list : cache.values()) {
+            watch(list);
+        }
+    }
+
+    /**
+     * Applies the change another program made to the list's file, if one has been read. Appended
+     * tasks are added at the end; a rewritten file replaces the tasks and clears the undo history,
+     * whose positions no longer apply. Either way the list is then compacted in the background, so
+     * its file again matches the tasks in memory.
+     *
+     * @param list loaded list to update
+     * @return whether {@code list.tasks} was replaced
+     */
+    boolean applyExternalChange(Loaded list) {
+        Storage.ExternalChange change;
+        try {
+            change = list.storage.takeExternalChange();
+        } catch (IOException e) {
+            onError.accept("Could not reload list " + list.name + ": " + e.getMessage());
+            return false;
+        }
+        if (change == null) {
+            return false;
+        }
+        if (change.isAppend()) {
+            for (Yuri.Task t : change.tasks()) {
+                list.tasks.add(t);
+                list.reminders.schedule(t);
+            }
+        } else {
+            list.tasks = newStore(change.tasks());
+            list.undoLog.clear();
+            list.reminders.reset();
+        }
+        list.storage.compactNow(list.tasks::snapshot);
+        return !change.isAppend();
+    }
+
+    /**
+     * Returns the named list if it is loaded, without making it more recently used.
+     *
+     * @param name list name
+     * @return the loaded list, or {@code null} if it is not in the cache
+     */
+    Loaded peek(String name) {
+        for (Loaded list : cache.values()) {
+            if (list.name.equals(name)) {
+                return list;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the names of all lists, saved or loaded, with {@value #DEFAULT_LIST} first.
+     *
+     * @return list names
+     */
+    List<String> names() {
+        TreeSet<String> others = new TreeSet<>(cache.keySet());
+        try {
+            others.addAll(mainStorage.listNames());
+        } catch (IOException e) {
+            onError.accept("Could not read the saved lists: " + e.getMessage());
+        }
+        others.remove(DEFAULT_LIST);
+        List<String> names = new ArrayList<>(others.size() + 1);
+        names.add(DEFAULT_LIST);
+        names.addAll(others);
+        return names;
+    }
+
+    /**
+     * Sets whether every journal record of every loaded list is flushed as soon as it is written.
+     *
+     * @param isAutoFlush true to flush after every record
+     * @throws IOException if switching back on flushes buffered records and that fails
+     */
+    void setAutoFlush(boolean isAutoFlush) throws IOException {
+        this.isAutoFlush = isAutoFlush;
+        for (Loaded list : cache.values()) {
+            list.storage.setAutoFlush(isAutoFlush);
+        }
+    }
+
+    /**
+     * Sets how long journal records of every loaded list may wait before a background flush.
+     *
+     * @param delayMs maximum delay; 0 flushes after every record
+     */
+    void setFlushDelay(long delayMs) {
+        this.flushDelayMs = delayMs;
+        for (Loaded list : cache.values()) {
+            list.storage.setFlushDelay(delayMs);
+        }
+    }
+
+    /**
+     * Writes the buffered journal records of every dirty list through to its file.
+     *
+     * @throws IOException if a journal cannot be written
+     */
+    void flush() throws IOException {
+        for (Loaded list : cache.values()) {
+            if (list.isDirty) {
+                list.storage.flush();
+                list.isDirty = false;
+            }
+        }
+    }
+
+    /** Flushes and closes every loaded list. Errors are reported, not thrown. */
+    void closeAll() {
+        for (Loaded list : cache.values()) {
+            close(list);
+        }
+    }
+
+    private void watch(Loaded list) {
+        try {
+            list.storage.watch();
+        } catch (IOException e) {
+            onError.accept("Cannot watch list " + list.name + " for outside changes: " + e.getMessage());
+        }
+    }
+
+    private static TaskStore newStore(List<Yuri.Task> tasks) {
+        return "columnar".equalsIgnoreCase(System.getProperty("yuri.store"))
+                ? new ColumnarTaskList(tasks)
+                : new TaskList(tasks);
+    }
+
+    private void close(Loaded list) {
+        try {
+            if (list.isDirty) {
+                list.storage.flush();
+                list.isDirty = false;
+            }
+            list.storage.close();
+        } catch (IOException e) {
+            onError.accept("Failed to close list " + list.name + ": " + e.getMessage());
+        }
+    }
+}
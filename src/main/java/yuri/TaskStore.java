@@ -0,0 +1,181 @@
+package yuri;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * In-memory collection of tasks addressed by zero-based position.
+ * {@link TaskList} keeps task objects plus search indexes; {@link ColumnarTaskList} keeps
+ * primitive columns for very large lists and builds task objects only when asked for one.
+ */
+public interface TaskStore {
+
+    /**
+     * Adds a task to the end of the list.
+     *
+     * @param t task to add
+     */
+    void add(Yuri.Task t);
+
+    /**
+     * Returns the task at the given zero-based index.
+     *
+     * @param idx0 zero-based index of the task
+     * @return the task at {@code idx0}
+     */
+    Yuri.Task get(int idx0);
+
+    /**
+     * Returns the current position of the task with the given stable ID.
+     *
+     * @param id stable ID of the task, see {@link Yuri.Task#getId()}
+     * @return zero-based position of the task, or -1 if no task has that ID
+     */
+    int indexOfId(int id);
+
+    /**
+     * Removes and returns the task at the given zero-based index.
+     *
+     * @param idx0 zero-based index of the task to remove
+     * @return the removed task
+     */
+    Yuri.Task remove(int idx0);
+
+    /**
+     * Marks the task at the given zero-based index as done.
+     *
+     * @param idx0 zero-based index of the task to mark
+     */
+    void mark(int idx0);
+
+    /**
+     * Marks the task at the given zero-based index as not done.
+     *
+     * @param idx0 zero-based index of the task to unmark
+     */
+    void unmark(int idx0);
+
+    /**
+     * Sets the last done occurrence of the repeating task at the given zero-based index;
+     * later occurrences are open, and {@code null} opens them all. Does nothing for a task that
+     * happens once.
+     *
+     * @param idx0 zero-based index of the task
+     * @param day  last done occurrence, or {@code null}
+     */
+    void setDoneThrough(int idx0, LocalDate day);
+
+    /**
+     * Removes the tasks at the given positions in a single pass over the list.
+     *
+     * @param positions ascending, distinct zero-based positions to remove
+     * @return the removed tasks, in list order
+     */
+    List<Yuri.Task> removeAll(int[] positions);
+
+    /**
+     * Inserts tasks so that each ends up at the matching position, the inverse of
+     * {@link #removeAll(int[])}: {@code insertAll(p, removeAll(p))} restores the list.
+     *
+     * @param positions ascending, distinct zero-based positions in the resulting list
+     * @param inserted  tasks to insert, one per position
+     */
+    void insertAll(int[] positions, List<Yuri.Task> inserted);
+
+    /**
+     * Marks the tasks at the given zero-based positions as done.
+     *
+     * @param positions zero-based positions of the tasks to mark
+     */
+    void markAll(int[] positions);
+
+    /**
+     * Marks the tasks at the given zero-based positions as not done.
+     *
+     * @param positions zero-based positions of the tasks to unmark
+     */
+    void unmarkAll(int[] positions);
+
+    /**
+     * Returns the positions of tasks that are done.
+     *
+     * @return ascending zero-based positions (possibly empty)
+     */
+    int[] donePositions();
+
+    /**
+     * Returns all tasks matching the given query, see {@link #findPositions(String)}.
+     *
+     * @param keyword query to search for
+     * @return list of matching tasks (possibly empty)
+     * @throws IllegalArgumentException if keyword is null or blank
+     */
+    List<Yuri.Task> find(String keyword);
+
+    /**
+     * Returns the zero-based positions of tasks matching the given query, in list order.
+     * A query is one or more groups separated by {@code /or}; a task matches a group when every
+     * word of the group is a prefix of some word in its description (case-insensitive).
+     *
+     * @param query query to search for
+     * @return ascending zero-based positions of matching tasks (possibly empty)
+     * @throws IllegalArgumentException if query is null or blank
+     */
+    int[] findPositions(String query);
+
+    /**
+     * Returns the positions of deadlines due on the given day that are not done yet, including
+     * recurring deadlines with an open occurrence on that day.
+     *
+     * @param day due date to look up
+     * @return ascending zero-based positions (possibly empty)
+     */
+    int[] dueOn(LocalDate day);
+
+    /**
+     * Returns the positions of deadlines due strictly before the given day that are not done yet,
+     * ordered by due date and then by list position. A recurring deadline is listed once, dated
+     * by its first open occurrence, if that is before the day.
+     *
+     * @param day exclusive upper bound on the due date
+     * @return zero-based positions (possibly empty)
+     */
+    int[] dueBefore(LocalDate day);
+
+    /**
+     * Returns the number of tasks currently in the list.
+     *
+     * @return task count
+     */
+    int size();
+
+    /**
+     * Returns an unmodifiable view of the tasks.
+     *
+     * @return unmodifiable list view of tasks
+     */
+    List<Yuri.Task> all();
+
+    /**
+     * Returns a point-in-time copy of the tasks that later changes to this list do not affect,
+     * e.g. for writing a snapshot on a background thread.
+     *
+     * @return immutable copy of the current tasks
+     */
+    List<Yuri.Task> snapshot();
+
+    /**
+     * Passes the ID and date of every pending deadline and event that has an ID to {@code sink}:
+     * a deadline's due date or an event's start, which for a recurring task is its first
+     * occurrence. Tasks that have not been read yet are looked at without being built.
+     *
+     * @param sink receives each task's ID and date, in list order
+     */
+    void forEachPendingDate(DateSink sink);
+
+    /** Receives a task ID and an epoch day, see {@link #forEachPendingDate(DateSink)}. */
+    @FunctionalInterface
+    interface DateSink {
+        void accept(int id, long epochDay);
+    }
+}
@@ -0,0 +1,105 @@
+package yuri;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Bounded history of reversible edits behind the {@code undo} and {@code redo} commands.
+ * An entry holds only what is needed to reverse one command, such as the removed tasks and their
+ * positions or the positions whose done flag changed, so a step costs time and memory in
+ * proportion to the tasks it touched rather than to the whole list.
+ * Once the limit is reached the oldest entry is dropped.
+ */
+final class UndoLog {
+
+    /** One recorded command: how to reverse it and how to apply it again. */
+    static final class Edit {
+        private final String description;
+        private final Runnable undo;
+        private final Runnable redo;
+
+        /**
+         * Creates an edit.
+         *
+         * @param description what the command did, e.g. {@code "removed 3 tasks"}
+         * @param undo        restores the state from before the command
+         * @param redo        applies the command again to that restored state
+         */
+        Edit(String description, Runnable undo, Runnable redo) {
+            assert description != null && undo != null && redo != null : "Edit parts must not be null";
+            this.description = description;
+            this.undo = undo;
+            this.redo = redo;
+        }
+
+        /** Returns what the command did, e.g. {@code "removed 3 tasks"}. */
+        String description() {
+            return description;
+        }
+    }
+
+    private final int limit;
+    private final Deque<Edit> undoable = new ArrayDeque<>();
+    private final Deque<Edit> redoable = new ArrayDeque<>();
+
+    /**
+     * Creates an empty log.
+     *
+     * @param limit maximum number of edits that can be undone in a row
+     */
+    UndoLog(int limit) {
+        assert limit > 0 : "limit must be positive";
+        this.limit = limit;
+    }
+
+    /**
+     * Records a command that was just applied. Edits undone earlier can no longer be redone.
+     *
+     * @param edit the command's inverse and replay
+     */
+    void record(Edit edit) {
+        push(undoable, edit);
+        redoable.clear();
+    }
+
+    /**
+     * Reverses the most recent edit.
+     *
+     * @return the reversed edit, or {@code null} if there is nothing to undo
+     */
+    Edit undo() {
+        Edit edit = undoable.poll();
+        if (edit != null) {
+            edit.undo.run();
+            push(redoable, edit);
+        }
+        return edit;
+    }
+
+    /**
+     * Applies the most recently undone edit again.
+     *
+     * @return the reapplied edit, or {@code null} if there is nothing to redo
+     */
+    Edit redo() {
+        Edit edit = redoable.poll();
+        if (edit != null) {
+            edit.redo.run();
+            push(undoable, edit);
+        }
+        return edit;
+    }
+
+    /** Forgets every edit, e.g. after the tasks were replaced by a version read from disk. */
+    void clear() {
+        undoable.clear();
+        redoable.clear();
+    }
+
+    private void push(Deque<Edit> stack, Edit edit) {
+        stack.push(edit);
+        if (stack.size() > limit) {
+            stack.removeLast();
+        }
+    }
+}
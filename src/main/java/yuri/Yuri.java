@@ -1,9 +1,26 @@
 package yuri;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.regex.Pattern;
 import java.time.format.DateTimeParseException;
 
 /**
@@ -15,8 +32,14 @@ public class Yuri {
 
     private final Parser parser = new Parser();
     private final Ui ui = new Ui();
-    private final Storage storage = new Storage("data/duke.txt");
-    private final TaskList tasks;
+    private final Metrics metrics = new Metrics();
+    private final TaskLists lists;
+    /** The list commands act on, and its parts; all four change together in {@link #switchTo}. */
+    private TaskLists.Loaded current;
+    private Storage storage;
+    private TaskStore tasks;
+    private UndoLog undoLog;
+    private ReminderQueue reminders;
 
     public String getGreeting() {
         return "Hello! I'm Yuri\nWhat can I do for you?\n"
@@ -34,46 +57,80 @@ public class Yuri {
             "Commands:",
             "  list",
             "  todo <desc>",
-            "  deadline <desc> /by <yyyy-mm-dd>",
-            "  event <desc> /from <yyyy-mm-dd> /to <yyyy-mm-dd>",
+            "  deadline <desc> /by <yyyy-mm-dd> [/every day|week|month]",
+            "  event <desc> /from <yyyy-mm-dd> /to <yyyy-mm-dd> [/every day|week|month]",
             "  mark <n>     | unmark <n> | delete <n>",
-            "  find <keyword>",
+            "    (<n> can also be a range or list, e.g. 1-5 or 3,7,9, or a task ID like #12)",
+            "  delete done",
+            "  undo | redo",
+            "  use <list>   | lists",
+            "  find <words> [/or <words>]",
+            "  due <yyyy-mm-dd> | due before <yyyy-mm-dd> | overdue",
+            "  export csv|json|ics <file>",
+            "  stats",
             "  help",
             "  bye"
     );
 
+    private static final String RECURRENCE_HINT =
+            "Repeat with '/every day', '/every week' or '/every month'. "
+            + "Example: deadline report /by 2026-11-02 /every week";
+
     private static final DateTimeFormatter DATE_FMT =
             DateTimeFormatter.ofPattern("MMM d yyyy");
 
     public String getResponse(String input) {
+        return getResponse(input, true);
+    }
+
+    /**
+     * Produces the reply to one line of input, first applying any change another program made to
+     * the current list's save file unless {@code isApplyingExternalChanges} is false.
+     * Callers that let read-only commands run concurrently pass false for those.
+     */
+    String getResponse(String input, boolean isApplyingExternalChanges) {
         String line = input == null ? "" : input.trim();
         if (line.isEmpty()) {
             return "";
         }
 
+        Command cmd = parser.commandOf(line);
+        long start = System.nanoTime();
         try {
-            String cmd = line.split("\\s+", 2)[0].toLowerCase();
+            if (isApplyingExternalChanges && lists.applyExternalChange(current)) {
+                switchTo(current);
+            }
             switch (cmd) {
-                case "list":     return handleList(line);
-                case "bye":      return "Bye. Hope to see you again soon!";
-                case "help":     return HELP;
-                case "find":     return handleFind(line);
-                case "mark":     return handleMark(line);
-                case "unmark":   return handleUnmark(line);
-                case "delete":   return handleDelete(line);
-                case "todo":     return handleTodo(line);
-                case "deadline": return handleDeadline(line);
-                case "event":    return handleEvent(line);
-                default:         return "I don’t recognize that command.\n" + HELP;
+                case LIST:     return handleList(line);
+                case BYE:      return "Bye. Hope to see you again soon!";
+                case HELP:     return HELP;
+                case FIND:     return handleFind(line);
+                case DUE:      return handleDue(line);
+                case OVERDUE:  return handleOverdue(line);
+                case STATS:    return metrics.getReport();
+                case LISTS:    return handleLists(line);
+                case EXPORT:   return handleExport(line);
+                case USE:      return handleUse(line);
+                case MARK:     return handleMark(line);
+                case UNMARK:   return handleUnmark(line);
+                case DELETE:   return handleDelete(line);
+                case TODO:     return handleTodo(line);
+                case DEADLINE: return handleDeadline(line);
+                case EVENT:    return handleEvent(line);
+                case UNDO:     return handleUndo(line);
+                case REDO:     return handleRedo(line);
+                default:       return "I don’t recognize that command.\n" + HELP;
             }
         } catch (YuriException e) {
             // Convert domain errors into a user-friendly message
             return "OOPS!!! " + e.getMessage();
+        } finally {
+            metrics.recordCommand(cmd, System.nanoTime() - start);
         }
     }
 
     private String handleList(String line) throws YuriException {
-        if (line.strip().contains(" ")) {
+        if (parser.wordEnd(line, 0) != line.length()) {
             throw new YuriException("Just type 'list' with no extra words.");
         }
         return renderList();
@@ -82,44 +139,238 @@ public class Yuri {
     private String handleFind(String line) throws YuriException {
         String keyword = parser.sliceAfter(line, "find");
         if (keyword.isBlank()) {
-            throw new YuriException("Please provide a keyword. Example: find book");
+            throw new YuriException("Please provide a keyword. Example: find book /or pen");
         }
         return renderFind(keyword);
     }
 
+    private String handleDue(String line) throws YuriException {
+        String arg = parser.sliceAfter(line, "due");
+        if (parser.startsWithWord(arg, "before")) {
+            LocalDate day = parseIsoDateOrThrow(parser.sliceAfter(arg, "before"), "Due date");
+            return renderNumbered("Here are the deadlines due before " + day.format(DATE_FMT) + ":",
+                    tasks.dueBefore(day), "No pending deadlines before " + day.format(DATE_FMT) + ".",
+                    this::renderFirstOpen);
+        }
+        LocalDate day = parseIsoDateOrThrow(arg, "Due date");
+        return renderNumbered("Here are the deadlines due on " + day.format(DATE_FMT) + ":",
+                tasks.dueOn(day), "No pending deadlines on " + day.format(DATE_FMT) + ".",
+                i -> ((Deadline) tasks.get(i)).renderDueOn(day));
+    }
+
+    private String handleOverdue(String line) throws YuriException {
+        if (parser.wordEnd(line, 0) != line.length()) {
+            throw new YuriException("Just type 'overdue' with no extra words.");
+        }
+        return renderNumbered("Here are your overdue deadlines:",
+                tasks.dueBefore(LocalDate.now()), "Nothing is overdue. Nice!", this::renderFirstOpen);
+    }
+
+    /** Renders the deadline at {@code idx0} as due on its first occurrence that is not done. */
+    private String renderFirstOpen(int idx0) {
+        Deadline d = (Deadline) tasks.get(idx0);
+        return d.renderDueOn(ReminderQueue.firstOpenDate(d));
+    }
+
     private String handleMark(String line) throws YuriException {
-        int idx = parser.parseIndexOrThrow(line, "mark") - 1;
+        int[] positions = parser.parsePositionsOrThrow(line, "mark", tasks.size(), tasks::indexOfId);
+        if (positions.length > 1) {
+            int[] series = Arrays.stream(positions).filter(this::isOpenSeries).toArray();
+            int[] others = series.length == 0 ? positions
+                    : Arrays.stream(positions).filter(i -> !isOpenSeries(i)).toArray();
+            int[] changed = positionsWithDone(others, false);
+            LocalDate[] before = doneThroughOf(series);
+            LocalDate[] after = new LocalDate[series.length];
+            for (int k = 0; k < series.length; k++) {
+                after[k] = ReminderQueue.firstOpenDate(tasks.get(series[k]));
+            }
+            if (others.length > 0) {
+                tasks.markAll(others);
+                persist(() -> storage.appendDone(others, true));
+            }
+            setDoneThrough(series, after);
+            recordDone(changed, true, series, before, after);
+            return "Nice! I've marked " + positions.length + " tasks as done.";
+        }
+        int idx = positions[0];
         requireValidIndex(idx);
+        if (isOpenSeries(idx)) {
+            LocalDate[] before = doneThroughOf(positions);
+            LocalDate[] after = {ReminderQueue.firstOpenDate(tasks.get(idx))};
+            setDoneThrough(positions, after);
+            recordDone(new int[0], true, positions, before, after);
+            return "Nice! I've marked the " + after[0].format(DATE_FMT)
+                    + " occurrence of this task as done:\n   " + tasks.get(idx);
+        }
+        int[] changed = tasks.get(idx).isDone ? new int[0] : positions;
         tasks.mark(idx);
-        persist();
+        persist(() -> storage.appendDone(idx, true));
+        recordDone(changed, true);
         return "Nice! I've marked this task as done:\n   " + tasks.get(idx);
     }
 
     private String handleUnmark(String line) throws YuriException {
-        int idx = parser.parseIndexOrThrow(line, "unmark") - 1;
+        int[] positions = parser.parsePositionsOrThrow(line, "unmark", tasks.size(), tasks::indexOfId);
+        if (positions.length > 1) {
+            int[] series = Arrays.stream(positions).filter(this::hasDoneOccurrence).toArray();
+            int[] others = series.length == 0 ? positions
+                    : Arrays.stream(positions).filter(i -> !hasDoneOccurrence(i)).toArray();
+            int[] changed = positionsWithDone(others, true);
+            LocalDate[] before = doneThroughOf(series);
+            LocalDate[] after = new LocalDate[series.length];
+            for (int k = 0; k < series.length; k++) {
+                after[k] = lastDoneBefore(tasks.get(series[k]));
+            }
+            if (others.length > 0) {
+                tasks.unmarkAll(others);
+                persist(() -> storage.appendDone(others, false));
+                scheduleReminders(changed);
+            }
+            setDoneThrough(series, after);
+            recordDone(changed, false, series, before, after);
+            return "OK, I've marked " + positions.length + " tasks as not done yet.";
+        }
+        int idx = positions[0];
         requireValidIndex(idx);
+        if (hasDoneOccurrence(idx)) {
+            LocalDate[] before = doneThroughOf(positions);
+            LocalDate[] after = {lastDoneBefore(tasks.get(idx))};
+            setDoneThrough(positions, after);
+            recordDone(new int[0], false, positions, before, after);
+            return "OK, I've marked the " + before[0].format(DATE_FMT)
+                    + " occurrence of this task as not done yet:\n   " + tasks.get(idx);
+        }
+        int[] changed = tasks.get(idx).isDone ? positions : new int[0];
         tasks.unmark(idx);
-        persist();
+        persist(() -> storage.appendDone(idx, false));
+        scheduleReminders(changed);
+        recordDone(changed, false);
         return "OK, I've marked this task as not done yet:\n   " + tasks.get(idx);
     }
 
     private String handleDelete(String line) throws YuriException {
-        int idx = parser.parseIndexOrThrow(line, "delete") - 1;
+        int[] positions;
+        if (parser.isArgument(line, "done")) {
+            positions = tasks.donePositions();
+            if (positions.length == 0) {
+                return "There are no done tasks to delete.";
+            }
+        } else {
+            positions = parser.parsePositionsOrThrow(line, "delete", tasks.size(), tasks::indexOfId);
+        }
+        if (positions.length > 1) {
+            List<Task> removed = tasks.removeAll(positions);
+            persist(() -> storage.appendDelete(positions));
+            recordDelete(positions, removed);
+            return "Noted. I've removed " + positions.length + " tasks."
+                    + "\nNow you have " + tasks.size() + " tasks in the list.";
+        }
+        int idx = positions[0];
         requireValidIndex(idx);
         Task removed = tasks.remove(idx);
-        persist();
+        persist(() -> storage.appendDelete(idx));
+        recordDelete(positions, List.of(removed));
         return "Noted. I've removed this task:\n   " + removed
                 + "\nNow you have " + tasks.size() + " tasks in the list.";
     }
 
+    private String handleUndo(String line) throws YuriException {
+        if (parser.wordEnd(line, 0) != line.length()) {
+            throw new YuriException("Just type 'undo' with no extra words.");
+        }
+        UndoLog.Edit edit = undoLog.undo();
+        if (edit == null) {
+            return "Nothing to undo.";
+        }
+        return "Undone: " + edit.description() + ".\nNow you have " + tasks.size() + " tasks in the list.";
+    }
+
+    private String handleRedo(String line) throws YuriException {
+        if (parser.wordEnd(line, 0) != line.length()) {
+            throw new YuriException("Just type 'redo' with no extra words.");
+        }
+        UndoLog.Edit edit = undoLog.redo();
+        if (edit == null) {
+            return "Nothing to redo.";
+        }
+        return "Redone: " + edit.description() + ".\nNow you have " + tasks.size() + " tasks in the list.";
+    }
+
+    private String handleUse(String line) throws YuriException {
+        String name = parser.sliceAfter(line, "use").trim().toLowerCase();
+        if (name.isEmpty()) {
+            throw new YuriException("Which list? Try 'use work', or 'lists' to see them all.");
+        }
+        if (!LIST_NAME.matcher(name).matches()) {
+            throw new YuriException("List names use only letters, digits, '-' and '_' (up to 64 characters).");
+        }
+        switchTo(lists.open(name));
+        return "Now using list '" + name + "' with " + countOf(tasks.size()) + ".";
+    }
+
+    private String handleExport(String line) throws YuriException {
+        String arg = parser.sliceAfter(line, "export");
+        int end = parser.wordEnd(arg, 0);
+        TaskExporter.Format format = TaskExporter.Format.fromWord(arg.substring(0, end));
+        String file = arg.substring(end).trim();
+        if (format == null || file.isEmpty()) {
+            throw new YuriException("Export as csv, json or ics to a file. Example: export ics tasks.ics");
+        }
+        Path target;
+        try {
+            target = Path.of(file).toAbsolutePath();
+        } catch (InvalidPathException e) {
+            throw new YuriException("That is not a valid file name: " + file);
+        }
+        if (Files.isDirectory(target)) {
+            throw new YuriException(file + " is a folder. Give a file name to export to.");
+        }
+        try {
+            int n = TaskExporter.export(tasks, current.name, format, target);
+            return "Exported " + countOf(n) + " to " + target + ".";
+        } catch (IOException e) {
+            throw new YuriException("Could not export to " + file + ": " + e.getMessage());
+        }
+    }
+
+    private String handleLists(String line) throws YuriException {
+        if (parser.wordEnd(line, 0) != line.length()) {
+            throw new YuriException("Just type 'lists' with no extra words.");
+        }
+        StringBuilder sb = new StringBuilder("Here are your lists:");
+        for (String name : lists.names()) {
+            sb.append("\n ").append(name.equals(current.name) ? "* " : "  ").append(name);
+            TaskLists.Loaded loaded = lists.peek(name);
+            if (loaded != null) {
+                sb.append(" (").append(countOf(loaded.tasks.size())).append(')');
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Returns whether a change another program made to the current list's file awaits applying. */
+    boolean hasExternalChange() {
+        return storage.hasExternalChange();
+    }
+
+    /** Watches the save files of all lists for changes made by other programs. */
+    void watchSaveFiles() {
+        lists.watch();
+    }
+
+    private void switchTo(TaskLists.Loaded list) {
+        current = list;
+        storage = list.storage;
+        tasks = list.tasks;
+        undoLog = list.undoLog;
+        reminders = list.reminders;
+    }
+
     private String handleTodo(String line) throws YuriException {
         String desc = parser.sliceAfter(line, "todo");
         if (desc.isBlank()) throw new YuriException("The description of a todo cannot be empty.");
         Task t = new Todo(desc);
-        tasks.add(t);
-        persist();
-        return "Got it. I've added this task:\n   " + t
-                + "\nNow you have " + tasks.size() + " tasks in the list.";
+        return addTask(t);
     }
 
     private String handleDeadline(String line) throws YuriException {
@@ -128,14 +379,17 @@ public class Yuri {
                 "Deadline needs '/by <when>'. Example: deadline return book /by 2019-12-02");
         String desc = parts[0].trim();
         String byStr = parts[1].trim();
+        Recurrence every = null;
+        if (parser.indexOfToken(byStr, "/every") >= 0) {
+            String[] pEvery = parser.splitOnceOrThrow(byStr, "/every", RECURRENCE_HINT);
+            byStr = pEvery[0].trim();
+            every = parseRecurrenceOrThrow(pEvery[1]);
+        }
         if (desc.isEmpty()) throw new YuriException("Deadline description cannot be empty.");
         // validate date format (yyyy-MM-dd)
         LocalDate by = parseIsoDateOrThrow(byStr, "Deadline date");
-        Task t = new Deadline(desc, by.toString());
-        tasks.add(t);
-        persist();
-        return "Got it. I've added this task:\n   " + t
-                + "\nNow you have " + tasks.size() + " tasks in the list.";
+        Task t = every == null ? new Deadline(desc, by) : new RecurringDeadline(desc, by, every);
+        return addTask(t);
     }
 
     private String handleEvent(String line) throws YuriException {
@@ -148,6 +402,12 @@ public class Yuri {
                 "Event needs '/to <end>'. Example: event meeting /from 2019-12-10 /to 2019-12-12");
         String fromStr = pTo[0].trim();
         String toStr = pTo[1].trim();
+        Recurrence every = null;
+        if (parser.indexOfToken(toStr, "/every") >= 0) {
+            String[] pEvery = parser.splitOnceOrThrow(toStr, "/every", RECURRENCE_HINT);
+            toStr = pEvery[0].trim();
+            every = parseRecurrenceOrThrow(pEvery[1]);
+        }
         if (desc.isEmpty()) throw new YuriException("Event description cannot be empty.");
         if (fromStr.isEmpty()) throw new YuriException("Please specify the event start after '/from'.");
         if (toStr.isEmpty()) throw new YuriException("Please specify the event end after '/to'.");
@@ -159,58 +419,410 @@ public class Yuri {
             throw new YuriException("Event end date must not be before start date.");
         }
 
-        Task t = new Event(desc, from.toString(), to.toString());
+        Task t = every == null ? new Event(desc, from, to) : new RecurringEvent(desc, from, to, every);
+        return addTask(t);
+    }
+
+    private static Recurrence parseRecurrenceOrThrow(String word) throws YuriException {
+        Recurrence every = Recurrence.fromWord(word.trim());
+        if (every == null) {
+            throw new YuriException(RECURRENCE_HINT);
+        }
+        return every;
+    }
+
+    /** Numbers, stores and persists a new task, and returns the confirmation. */
+    private String addTask(Task t) {
+        storage.assignId(t);
         tasks.add(t);
-        persist();
-        return "Got it. I've added this task:\n   " + t
+        persist(() -> storage.appendAdd(t));
+        reminders.schedule(t);
+        int[] at = {tasks.size() - 1};
+        undoLog.record(new UndoLog.Edit("added " + t,
+                () -> removeTasks(at), () -> insertTasks(at, List.of(t))));
+        return "Got it. I've added this task (#" + t.getId() + "):\n   " + t
                 + "\nNow you have " + tasks.size() + " tasks in the list.";
     }
 
-    /** Builds the numbered task list output (used by 'list'). */
+    /* =========================
+       Undo support
+       ========================= */
+
+    /** Returns those of the given positions whose task's done flag equals {@code isDone}. */
+    private int[] positionsWithDone(int[] positions, boolean isDone) {
+        return Arrays.stream(positions).filter(i -> tasks.get(i).isDone == isDone).toArray();
+    }
+
+    /** Records that the tasks at {@code changed} were marked or unmarked; no-ops are not recorded. */
+    private void recordDone(int[] changed, boolean isDone) {
+        recordDone(changed, isDone, new int[0], new LocalDate[0], new LocalDate[0]);
+    }
+
+    /**
+     * Records a mark or unmark that set the done flag of the tasks at {@code changed} and moved the
+     * last done occurrence of the repeating tasks at {@code series} from {@code before} to
+     * {@code after}, as one edit; no-ops are not recorded.
+     */
+    private void recordDone(int[] changed, boolean isDone, int[] series, LocalDate[] before, LocalDate[] after) {
+        if (changed.length + series.length == 0) {
+            return;
+        }
+        undoLog.record(new UndoLog.Edit((isDone ? "marked " : "unmarked ") + countOf(changed.length + series.length),
+                () -> {
+                    setDone(changed, !isDone);
+                    setDoneThrough(series, before);
+                }, () -> {
+                    setDone(changed, isDone);
+                    setDoneThrough(series, after);
+                }));
+    }
+
+    /** Returns whether the task at {@code idx0} repeats and its next occurrence can be marked done. */
+    private boolean isOpenSeries(int idx0) {
+        Task t = tasks.get(idx0);
+        return !t.isDone && t.getRecurrence() != null;
+    }
+
+    /** Returns whether the task at {@code idx0} repeats and has an occurrence marked done. */
+    private boolean hasDoneOccurrence(int idx0) {
+        Task t = tasks.get(idx0);
+        return !t.isDone && t.getDoneThrough() != null;
+    }
+
+    private LocalDate[] doneThroughOf(int[] positions) {
+        LocalDate[] days = new LocalDate[positions.length];
+        for (int k = 0; k < positions.length; k++) {
+            days[k] = tasks.get(positions[k]).getDoneThrough();
+        }
+        return days;
+    }
+
+    /** Returns the occurrence before a repeating task's last done one, or {@code null} if none is. */
+    private static LocalDate lastDoneBefore(Task t) {
+        return t.getRecurrence().lastBefore(ReminderQueue.dateOf(t), t.getDoneThrough());
+    }
+
+    /** Sets the last done occurrence of each repeating task at {@code positions} to {@code days[k]}. */
+    private void setDoneThrough(int[] positions, LocalDate[] days) {
+        for (int k = 0; k < positions.length; k++) {
+            int idx = positions[k];
+            LocalDate previous = tasks.get(idx).getDoneThrough();
+            LocalDate day = days[k];
+            tasks.setDoneThrough(idx, day);
+            persist(() -> storage.appendDoneThrough(idx, day));
+            if (day == null || (previous != null && day.isBefore(previous))) {
+                reminders.schedule(tasks.get(idx));
+            }
+        }
+    }
+
+    /** Records that {@code removed} were deleted from {@code positions}. */
+    private void recordDelete(int[] positions, List<Task> removed) {
+        undoLog.record(new UndoLog.Edit("removed " + countOf(positions.length),
+                () -> insertTasks(positions, removed), () -> removeTasks(positions)));
+    }
+
+    private void setDone(int[] positions, boolean isDone) {
+        if (positions.length == 0) {
+            return;
+        }
+        if (isDone) {
+            tasks.markAll(positions);
+        } else {
+            tasks.unmarkAll(positions);
+            scheduleReminders(positions);
+        }
+        persist(() -> storage.appendDone(positions, isDone));
+    }
+
+    private void removeTasks(int[] positions) {
+        tasks.removeAll(positions);
+        persist(() -> storage.appendDelete(positions));
+    }
+
+    private void insertTasks(int[] positions, List<Task> inserted) {
+        tasks.insertAll(positions, inserted);
+        persist(() -> storage.appendInsert(positions, inserted));
+        for (Task t : inserted) {
+            reminders.schedule(t);
+        }
+    }
+
+    /* =========================
+       Reminders
+       ========================= */
+
+    /**
+     * Returns reminders of the deadlines and event starts in the current list that have come within
+     * the lead time ({@code -Dyuri.remind.days}, default 1 day) since the last call, or an empty
+     * string if there are none. Each task is reminded of once. Must be called from the thread that
+     * runs commands, like {@link #getResponse(String)}.
+     */
+    public String takeReminders() {
+        return takeReminders(LocalDate.now());
+    }
+
+    String takeReminders(LocalDate today) {
+        long[] due = reminders.takeDueByDate(tasks, today);
+        if (due.length == 0) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(due.length == 1 ? "Reminder:" : "Reminders:");
+        int shown = Math.min(due.length, MAX_REMINDERS_SHOWN);
+        for (int k = 0; k < shown; k++) {
+            int pos = (int) due[k];
+            Task t = tasks.get(pos);
+            long days = (due[k] >> 32) - today.toEpochDay();
+            sb.append("\n ").append(pos + 1).append('.').append(t)
+                    .append(t instanceof Event ? ", starts " : ", due ")
+                    .append(days == 0 ? "today" : days == 1 ? "tomorrow" : "in " + days + " days");
+        }
+        if (due.length > shown) {
+            sb.append("\n ...and ").append(due.length - shown).append(" more.");
+        }
+        return sb.toString();
+    }
+
+    private void scheduleReminders(int[] positions) {
+        for (int i : positions) {
+            reminders.schedule(tasks.get(i));
+        }
+    }
+
+    private static String countOf(int n) {
+        return n == 1 ? "1 task" : n + " tasks";
+    }
+
+    /**
+     * Builds the numbered task list output (used by 'list').
+     * Tasks cache their display strings, so this is one sizing pass and one append pass
+     * into a buffer of exactly the right capacity.
+     */
     private String renderList() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("Here are the tasks in your list:\n");
-        for (int i = 0; i < tasks.size(); i++) {
-            sb.append(" ").append(i + 1).append(".").append(tasks.get(i)).append("\n");
+        String header = "Here are the tasks in your list:";
+        int n = tasks.size();
+        int capacity = header.length();
+        for (int i = 0; i < n; i++) {
+            // "\n " + number + "." + task
+            capacity += 3 + stringSize(i + 1) + tasks.get(i).toString().length();
+        }
+        StringBuilder sb = new StringBuilder(capacity).append(header);
+        for (int i = 0; i < n; i++) {
+            sb.append("\n ").append(i + 1).append('.').append(tasks.get(i).toString());
+        }
+        return sb.toString();
+    }
+
+    /** Number of decimal digits in a positive int. */
+    private static int stringSize(int x) {
+        int d = 1;
+        while (x >= 10) {
+            x /= 10;
+            d++;
         }
-        return sb.toString().stripTrailing();
+        return d;
     }
 
-    /** Builds the 'find' output. */
+    /** Builds the 'find' output from the task list's word index. */
     private String renderFind(String keyword) {
-        String kw = keyword.toLowerCase();
-        StringBuilder sb = new StringBuilder("Here are the matching tasks in your list:\n");
-        int shown = 0;
-        for (int i = 0; i < tasks.size(); i++) {
-            Task t = tasks.get(i);
-            String d = t.getDescription();
-            if (d != null && d.toLowerCase().contains(kw)) {
-                sb.append(" ").append(i + 1).append(".").append(t).append("\n");
-                shown++;
+        return renderNumbered("Here are the matching tasks in your list:",
+                tasks.findPositions(keyword), "No tasks match: " + keyword);
+    }
+
+    /**
+     * Renders the tasks at the given positions with their 1-based list numbers.
+     * Long results are rendered in segments on the fork-join pool and joined in order.
+     *
+     * @param header    first line of the output
+     * @param positions zero-based task positions, in display order
+     * @param empty     message to return when there are no positions
+     */
+    private String renderNumbered(String header, int[] positions, String empty) {
+        return renderNumbered(header, positions, empty, i -> tasks.get(i).toString());
+    }
+
+    /**
+     * Like {@link #renderNumbered(String, int[], String)}, but renders each task with
+     * {@code render}, given its zero-based position.
+     */
+    private String renderNumbered(String header, int[] positions, String empty, IntFunction<String> render) {
+        if (positions.length == 0) {
+            return empty;
+        }
+        List<String> parts = ParallelSegments.map(positions.length, PARALLEL_RENDER_CUTOFF, (from, to) -> {
+            StringBuilder sb = new StringBuilder((to - from) * 48);
+            for (int k = from; k < to; k++) {
+                int i = positions[k];
+                sb.append("\n ").append(i + 1).append('.').append(render.apply(i));
             }
+            return sb.toString();
+        });
+        int capacity = header.length();
+        for (String part : parts) {
+            capacity += part.length();
+        }
+        StringBuilder sb = new StringBuilder(capacity).append(header);
+        for (String part : parts) {
+            sb.append(part);
         }
-        return shown == 0 ? "No tasks match: " + keyword : sb.toString().stripTrailing();
+        return sb.toString();
     }
 
-    /** Constructs the app, loading tasks from storage if available. */
+    /**
+     * Constructs the app, loading tasks from storage if available.
+     * Runs with {@code -Dyuri.format=binary} keep tasks in the binary {@code data/duke.bin} instead,
+     * migrating an existing {@code data/duke.txt} on first start.
+     * Save files are watched, so changes other programs make to them show up in the next command.
+     */
     public Yuri() {
-        TaskList loaded;
+        this(defaultStorage());
+        watchSaveFiles();
+        metrics.registerInBackground();
+    }
+
+    private static Storage defaultStorage() {
+        if (!"binary".equalsIgnoreCase(System.getProperty("yuri.format"))) {
+            return new Storage("data/duke.txt");
+        }
+        Storage storage = new Storage("data/duke.bin", Storage.Format.BINARY);
         try {
-            loaded = new TaskList(storage.load());
+            storage.migrateFrom("data/duke.txt");
         } catch (IOException e) {
-            ui.showError("Error loading save file: " + e.getMessage());
-            loaded = new TaskList();
+            new Ui().showError("Could not migrate data/duke.txt: " + e.getMessage());
         }
-        this.tasks = loaded;
+        return storage;
     }
 
+    /**
+     * Constructs the app on top of the given storage, loading tasks from it if available.
+     *
+     * @param storage where tasks are loaded from and saved to
+     */
+    Yuri(Storage storage) {
+        this(storage, TaskLists.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs the app on top of the given storage, keeping at most {@code listCapacity} named
+     * lists loaded at a time. Other lists are saved next to the storage's file.
+     *
+     * @param storage      where the main list is loaded from and saved to
+     * @param listCapacity maximum number of lists kept in memory
+     */
+    Yuri(Storage storage, int listCapacity) {
+        assert storage != null : "storage must not be null";
+        this.lists = new TaskLists(storage, listCapacity, metrics, ui::showError);
+        switchTo(lists.open(TaskLists.DEFAULT_LIST));
+        metrics.setTaskCount(() -> tasks.size());
+    }
+
+    /** How often the console and the GUI check for due reminders. */
+    public static final long REMINDER_CHECK_SECONDS = 60;
+
+    /** Reminders beyond this many in one check are only counted. */
+    static final int MAX_REMINDERS_SHOWN = 10;
+
+    /** Number of most recent changes that {@code undo} can reverse, per list. */
+    static final int UNDO_LIMIT = 100;
+
+    /** Names accepted by {@code use}; they double as file names. */
+    private static final Pattern LIST_NAME = Pattern.compile("[a-z0-9_-]{1,64}");
+
+    /** Results with fewer matches than this are rendered on the calling thread. */
+    static final int PARALLEL_RENDER_CUTOFF = 1 << 14;
+
+    /** Default number of commands per storage commit in batch mode. */
+    public static final int DEFAULT_BATCH_GROUP = 1000;
+
+    /** Default maximum time between storage commits in batch mode. */
+    public static final long DEFAULT_BATCH_WINDOW_MS = 1000;
+
+    private static final String USAGE =
+            "Usage: yuri [--batch <file>] [--group <commands>] [--window-ms <milliseconds>]";
+
     /**
      * Program entry point.
+     * <p>Runs the interactive loop when attached to a terminal. With {@code --batch <file>}, or when
+     * stdin is not a terminal, commands are run in batch mode instead; {@code --group <n>} and
+     * {@code --window-ms <ms>} tune how often batch mode commits to storage.</p>
      *
-     * @param args command-line arguments (unused)
+     * @param args command-line arguments
      */
     public static void main(String[] args) {
-        new Yuri().run();
+        String batchFile = null;
+        int group = DEFAULT_BATCH_GROUP;
+        long windowMs = DEFAULT_BATCH_WINDOW_MS;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--batch":
+                        batchFile = optionValue(args, ++i, "--batch");
+                        break;
+                    case "--group":
+                        group = (int) positiveOption(args, ++i, "--group", Integer.MAX_VALUE);
+                        break;
+                    case "--window-ms":
+                        windowMs = positiveOption(args, ++i, "--window-ms", Long.MAX_VALUE);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (YuriException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return;
+        }
+
+        Yuri yuri = new Yuri();
+        if (batchFile == null && System.console() != null) {
+            yuri.run();
+            return;
+        }
+        try (Reader in = batchFile == null
+                ? new InputStreamReader(System.in)
+                : new FileReader(batchFile)) {
+            yuri.runBatch(new BufferedReader(in), group, windowMs, batchFile == null);
+        } catch (IOException e) {
+            yuri.ui.showError("Batch run failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the value following a command-line option.
+     *
+     * @param args command-line arguments
+     * @param i    index the value should be at
+     * @param name the option, for the error message
+     * @throws YuriException if the arguments end before the value
+     */
+    static String optionValue(String[] args, int i, String name) throws YuriException {
+        if (i >= args.length) {
+            throw new YuriException("Missing value after " + name + ".");
+        }
+        return args[i];
+    }
+
+    /**
+     * Returns the positive whole number following a command-line option.
+     *
+     * @param args command-line arguments
+     * @param i    index the value should be at
+     * @param name the option, for the error message
+     * @param max  largest value accepted
+     * @throws YuriException if the value is missing, not a number, or not between 1 and {@code max}
+     */
+    static long positiveOption(String[] args, int i, String name, long max) throws YuriException {
+        String value = optionValue(args, i, name);
+        try {
+            long n = Long.parseLong(value);
+            if (n > 0 && n <= max) {
+                return n;
+            }
+        } catch (NumberFormatException e) {
+            // reported below, the same as an out-of-range number
+        }
+        throw new YuriException(name + " needs a positive whole number, not '" + value + "'.");
     }
 
     /**
@@ -219,11 +831,15 @@ public class Yuri {
      */
     public void run() {
         ui.showGreeting();
+        ScheduledExecutorService reminderTimer = System.console() == null ? null : startReminderTimer();
         try (Scanner sc = new Scanner(System.in)) {
             while (sc.hasNextLine()) {
                 String input = sc.nextLine();
                 if (input == null) break;
-                String reply = getResponse(input);
+                String reply;
+                synchronized (this) {
+                    reply = getResponse(input);
+                }
                 // Reuse existing Ui formatting to print reply lines
                 // (or simply System.out.println with your preferred wrapper)
                 System.out.println(reply);
@@ -233,6 +849,99 @@ public class Yuri {
                 }
             }
         }
+        if (reminderTimer != null) {
+            reminderTimer.shutdownNow();
+        }
+        shutdown();
+    }
+
+    /** Prints due reminders now and every {@link #REMINDER_CHECK_SECONDS}, between commands. */
+    private ScheduledExecutorService startReminderTimer() {
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "yuri-reminders");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleAtFixedRate(() -> {
+            synchronized (this) {
+                String reminders = takeReminders();
+                if (!reminders.isEmpty()) {
+                    System.out.println(reminders);
+                }
+            }
+        }, 0, REMINDER_CHECK_SECONDS, TimeUnit.SECONDS);
+        return timer;
+    }
+
+    /**
+     * Runs commands from {@code in} through the same handlers as {@link #run()}, but commits the
+     * journal once per {@code groupSize} commands or {@code windowMs} milliseconds, whichever comes
+     * first, and buffers output between commits. A throughput summary is printed to stderr.
+     *
+     * @param in         source of commands, one per line
+     * @param groupSize  maximum number of commands per commit
+     * @param windowMs   maximum time between commits
+     * @param isChatty   whether to print the greeting and farewell like the interactive loop
+     * @throws IOException if reading commands fails
+     */
+    public void runBatch(BufferedReader in, int groupSize, long windowMs, boolean isChatty)
+            throws IOException {
+        assert groupSize > 0 : "groupSize must be positive";
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        if (isChatty) {
+            ui.showGreeting();
+        }
+        lists.setAutoFlush(false);
+        long start = System.nanoTime();
+        long lastCommit = start;
+        long windowNanos = windowMs * 1_000_000L;
+        int commands = 0;
+        int commits = 0;
+        int sinceCommit = 0;
+        boolean isBye = false;
+        String input;
+        while (!isBye && (input = in.readLine()) != null) {
+            out.println(getResponse(input));
+            commands++;
+            sinceCommit++;
+            isBye = input.trim().equalsIgnoreCase("bye");
+            long now = System.nanoTime();
+            if (sinceCommit >= groupSize || now - lastCommit >= windowNanos) {
+                lists.flush();
+                out.flush();
+                commits++;
+                sinceCommit = 0;
+                lastCommit = now;
+            }
+        }
+        if (sinceCommit > 0) {
+            commits++;
+        }
+        lists.setAutoFlush(true);
+        out.flush();
+        if (isBye && isChatty) {
+            ui.showFarewell();
+        }
+        shutdown();
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000L);
+        System.err.printf("Batch: %d commands in %d ms (%d commands/s), %d commits%n",
+                commands, elapsedMs, commands * 1000L / elapsedMs, commits);
+    }
+
+    /**
+     * Lets storage coalesce journal writes: edits made within {@code delayMs} of each other
+     * reach the disk in a single background write. Used by the GUI.
+     *
+     * @param delayMs maximum time an edit may wait before being written
+     */
+    public void coalesceSaves(long delayMs) {
+        lists.setFlushDelay(delayMs);
+    }
+
+    /** Waits for pending background storage work and releases the open save files of every list. */
+    public void shutdown() {
+        lists.closeAll();
     }
 
     /**
@@ -259,25 +968,48 @@ public class Yuri {
         }
     }
 
-    /** Persists the current task list to storage, reporting any I/O errors via {@link Ui}. */
-    private void persist() {
+    /**
+     * Persists one change by appending it to the storage journal, reporting any I/O errors
+     * via {@link Ui}. The journal is compacted in the background once it grows large.
+     *
+     * @param change the journal write describing the mutation that was just applied
+     */
+    private void persist(JournalWrite change) {
         assert tasks != null : "tasks must be initialized before persisting";
+        long start = System.nanoTime();
         try {
-            storage.save(tasks.all());
+            change.write();
+            current.isDirty = true;
+            storage.compactIfDue(tasks::snapshot);
         } catch (IOException e) {
             ui.showError("Failed to save: " + e.getMessage());
+        } finally {
+            metrics.recordPersist(System.nanoTime() - start);
         }
     }
 
+    /** A single journal append that may fail with an I/O error. */
+    @FunctionalInterface
+    private interface JournalWrite {
+        void write() throws IOException;
+    }
+
     /* =========================
        Task model + subclasses
        ========================= */
 
-    /** Represents a generic task with a description and done state. */
+    /**
+     * Represents a generic task with a description and done state.
+     * The display string is built once and cached until the done state changes.
+     * Tasks saved by {@link Storage} also carry a stable ID that does not change when other
+     * tasks are removed; 0 means no ID has been assigned yet.
+     */
     static class Task {
 
         protected final String description;
         protected boolean isDone;
+        protected int id;
+        private String display;
 
         Task(String description) {
             this.description = description;
@@ -286,10 +1018,12 @@ public class Yuri {
 
         void mark() {
             this.isDone = true;
+            this.display = null;
         }
 
         void unmark() {
             this.isDone = false;
+            this.display = null;
         }
 
         String getStatusIcon() {
@@ -301,8 +1035,23 @@ public class Yuri {
             return description;
         }
 
+        /** Returns the stable ID of this task, or 0 if it has none yet. */
+        public int getId() {
+            return id;
+        }
+
         @Override
         public String toString() {
+            String s = display;
+            if (s == null) {
+                s = render();
+                display = s;
+            }
+            return s;
+        }
+
+        /** Builds the display string; subclasses prepend their type tag and append dates. */
+        String render() {
             return "[" + getStatusIcon() + "] " + description;
         }
 
@@ -310,6 +1059,29 @@ public class Yuri {
         public String toSaveFormat() {
             return "T | " + (isDone ? "1" : "0") + " | " + description;
         }
+
+        /** Returns how often this task repeats, or {@code null} if it happens once. */
+        Recurrence getRecurrence() {
+            return null;
+        }
+
+        /** Returns the last occurrence of a repeating task that is done, or {@code null} if none is. */
+        LocalDate getDoneThrough() {
+            return null;
+        }
+
+        /**
+         * Marks the occurrences of a repeating task up to and including {@code day} done and the
+         * later ones open; {@code null} opens them all. A task that happens once has no
+         * occurrences, so for it this does nothing; use {@link #mark()} instead.
+         */
+        void setDoneThrough(LocalDate day) {
+        }
+
+        /** Drops the cached display string after a change to what it shows. */
+        void forgetDisplay() {
+            this.display = null;
+        }
     }
 
     /** A Todo task with only a description. */
@@ -319,8 +1091,8 @@ public class Yuri {
         }
 
         @Override
-        public String toString() {
-            return "[T]" + super.toString();
+        String render() {
+            return "[T]" + super.render();
         }
 
         @Override
@@ -335,14 +1107,40 @@ public class Yuri {
         private final LocalDate by;
 
         Deadline(String description, String by) {
+            this(description, LocalDate.parse(by));
+        }
+
+        Deadline(String description, LocalDate by) {
             super(description);
-            this.by = LocalDate.parse(by);
+            this.by = by;
+        }
+
+        /** Returns the due date of this deadline. */
+        LocalDate getBy() {
+            return by;
         }
 
         @Override
-        public String toString() {
-            return "[D]" + super.toString()
-                    + " (by: " + by.format(DateTimeFormatter.ofPattern("MMM d yyyy")) + ")";
+        String render() {
+            return renderWith(when());
+        }
+
+        /**
+         * Renders this deadline as due on the given date, which for a repeating deadline is one of
+         * its occurrences; a one-off deadline is always shown with its own date.
+         */
+        String renderDueOn(LocalDate date) {
+            return toString();
+        }
+
+        /** Renders the type tag, status and description followed by {@code when} in brackets. */
+        String renderWith(String when) {
+            return "[D]" + super.render() + " (" + when + ")";
+        }
+
+        /** Describes the due date for {@link #render()}. */
+        String when() {
+            return "by: " + by.format(DATE_FMT);
         }
 
         @Override
@@ -351,6 +1149,55 @@ public class Yuri {
         }
     }
 
+    /**
+     * A deadline that repeats, kept as one rule: its first due date and how often it recurs.
+     * Marking it done completes its next open occurrence, see {@link #getDoneThrough()}.
+     */
+    static class RecurringDeadline extends Deadline {
+
+        private final Recurrence every;
+        private LocalDate doneThrough;
+
+        RecurringDeadline(String description, LocalDate by, Recurrence every) {
+            super(description, by);
+            assert every != null : "every must not be null";
+            this.every = every;
+        }
+
+        @Override
+        Recurrence getRecurrence() {
+            return every;
+        }
+
+        @Override
+        LocalDate getDoneThrough() {
+            return doneThrough;
+        }
+
+        @Override
+        void setDoneThrough(LocalDate day) {
+            this.doneThrough = day;
+            forgetDisplay();
+        }
+
+        @Override
+        String renderDueOn(LocalDate date) {
+            return renderWith("by: " + date.format(DATE_FMT) + ", every " + every.word());
+        }
+
+        @Override
+        String when() {
+            return super.when() + ", every " + every.word()
+                    + (doneThrough == null ? "" : ", done through " + doneThrough.format(DATE_FMT));
+        }
+
+        @Override
+        public String toSaveFormat() {
+            return super.toSaveFormat() + " | every " + every.word()
+                    + (doneThrough == null ? "" : " | done " + doneThrough);
+        }
+    }
+
     /** An Event task with start and end dates (yyyy-MM-dd). */
     static class Event extends Task {
 
@@ -358,16 +1205,33 @@ public class Yuri {
         private final LocalDate to;
 
         Event(String description, String from, String to) {
+            this(description, LocalDate.parse(from), LocalDate.parse(to));
+        }
+
+        Event(String description, LocalDate from, LocalDate to) {
             super(description);
-            this.from = LocalDate.parse(from);
-            this.to = LocalDate.parse(to);
+            this.from = from;
+            this.to = to;
+        }
+
+        /** Returns the start date of this event. */
+        LocalDate getFrom() {
+            return from;
+        }
+
+        /** Returns the end date of this event. */
+        LocalDate getTo() {
+            return to;
         }
 
         @Override
-        public String toString() {
-            return "[E]" + super.toString()
-                    + " (from: " + from.format(DateTimeFormatter.ofPattern("MMM d yyyy"))
-                    + " to: " + to.format(DateTimeFormatter.ofPattern("MMM d yyyy")) + ")";
+        String render() {
+            return "[E]" + super.render() + " (" + when() + ")";
+        }
+
+        /** Describes the dates for {@link #render()}. */
+        String when() {
+            return "from: " + from.format(DATE_FMT) + " to: " + to.format(DATE_FMT);
         }
 
         @Override
@@ -376,6 +1240,51 @@ public class Yuri {
         }
     }
 
+    /**
+     * An event that repeats, kept as one rule: its first start and end dates and how often it
+     * recurs. Every occurrence lasts as long as the first. Marking it done completes its next open
+     * occurrence, see {@link #getDoneThrough()}.
+     */
+    static class RecurringEvent extends Event {
+
+        private final Recurrence every;
+        private LocalDate doneThrough;
+
+        RecurringEvent(String description, LocalDate from, LocalDate to, Recurrence every) {
+            super(description, from, to);
+            assert every != null : "every must not be null";
+            this.every = every;
+        }
+
+        @Override
+        Recurrence getRecurrence() {
+            return every;
+        }
+
+        @Override
+        LocalDate getDoneThrough() {
+            return doneThrough;
+        }
+
+        @Override
+        void setDoneThrough(LocalDate day) {
+            this.doneThrough = day;
+            forgetDisplay();
+        }
+
+        @Override
+        String when() {
+            return super.when() + ", every " + every.word()
+                    + (doneThrough == null ? "" : ", done through " + doneThrough.format(DATE_FMT));
+        }
+
+        @Override
+        public String toSaveFormat() {
+            return super.toSaveFormat() + " | every " + every.word()
+                    + (doneThrough == null ? "" : " | done " + doneThrough);
+        }
+    }
+
     /** Dedicated checked exception for user-facing errors. */
     static class YuriException extends Exception {
         YuriException(String message) {
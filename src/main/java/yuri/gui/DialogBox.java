@@ -13,6 +13,8 @@ import javafx.scene.shape.Circle;
 /**
  * Dialog bubble with a circular avatar image and a text label.
  * Left-aligned for Yuri, right-aligned for the user.
+ * A bubble is built once and then re-pointed at different {@link Message}s by {@link DialogCell},
+ * so scrolling through a long history reuses the same few nodes.
  */
 public class DialogBox extends HBox {
 
@@ -21,6 +23,15 @@ public class DialogBox extends HBox {
     private static final Image USER_AVATAR = loadImage("/view/user.png");
     private static final Image YURI_AVATAR = loadImage("/view/yuri.png");
 
+    private static final String USER_STYLE =
+            "-fx-background-color: #dbeafe; -fx-background-radius: 10; -fx-font-size: 13px;";
+    private static final String YURI_STYLE =
+            "-fx-background-color: #f1f3f5; -fx-background-radius: 10; -fx-font-size: 13px;";
+
+    private final ImageView imageView = new ImageView();
+    private final Label label = new Label();
+    private Boolean shownAsUser;
+
     private static Image loadImage(String path) {
         InputStream is = DialogBox.class.getResourceAsStream(path);
         if (is == null) {
@@ -30,12 +41,11 @@ public class DialogBox extends HBox {
         return new Image(is);
     }
 
-    private DialogBox(String text, Image avatar, boolean isUser) {
-        setAlignment(isUser ? Pos.TOP_RIGHT : Pos.TOP_LEFT);
+    /** Creates an empty bubble; call {@link #show(Message)} to fill it. */
+    public DialogBox() {
         setSpacing(8);
         setPadding(new Insets(6));
 
-        ImageView imageView = new ImageView(avatar);
         imageView.setFitWidth(AVATAR_SIZE);
         imageView.setFitHeight(AVATAR_SIZE);
         imageView.setPreserveRatio(true);
@@ -44,39 +54,40 @@ public class DialogBox extends HBox {
         Circle clip = new Circle(AVATAR_SIZE / 2, AVATAR_SIZE / 2, AVATAR_SIZE / 2);
         imageView.setClip(clip);
 
-        Label label = new Label(text);
         label.setWrapText(true);
         label.setPadding(new Insets(8, 12, 8, 12));
-        label.setStyle(isUser
-                ? "-fx-background-color: #dbeafe; -fx-background-radius: 10; -fx-font-size: 13px;"
-                : "-fx-background-color: #f1f3f5; -fx-background-radius: 10; -fx-font-size: 13px;");
+    }
 
+    /**
+     * Displays the given message, switching sides only if the sender differs from last time.
+     *
+     * @param message message to show
+     */
+    public void show(Message message) {
+        label.setText(message.text());
+        boolean isUser = message.isUser();
+        if (shownAsUser != null && shownAsUser == isUser) {
+            return;
+        }
+        shownAsUser = isUser;
+        setAlignment(isUser ? Pos.TOP_RIGHT : Pos.TOP_LEFT);
+        imageView.setImage(isUser ? USER_AVATAR : YURI_AVATAR);
+        label.setStyle(isUser ? USER_STYLE : YURI_STYLE);
         if (isUser) {
             // Right side: label then avatar (RTL trick not needed with ordering)
-            getChildren().addAll(label, imageView);
+            getChildren().setAll(label, imageView);
         } else {
             // Left side: avatar then label
-            getChildren().addAll(imageView, label);
+            getChildren().setAll(imageView, label);
         }
     }
 
     /**
-     * Returns a dialog styled as a user message (right-aligned).
-     *
-     * @param text message text
-     * @return dialog node
-     */
-    public static DialogBox getUserDialog(String text) {
-        return new DialogBox(text, USER_AVATAR, true);
-    }
-
-    /**
-     * Returns a dialog styled as a Yuri message (left-aligned).
+     * Caps the width of the text bubble so long replies wrap instead of widening the cell.
      *
-     * @param text message text
-     * @return dialog node
+     * @param width maximum bubble width in pixels
      */
-    public static DialogBox getYuriDialog(String text) {
-        return new DialogBox(text, YURI_AVATAR, false);
+    public void setMaxTextWidth(double width) {
+        label.setMaxWidth(width);
     }
 }
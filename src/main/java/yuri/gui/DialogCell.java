@@ -0,0 +1,41 @@
+package yuri.gui;
+
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+
+/**
+ * List cell that renders a {@link Message} with one reusable {@link DialogBox}.
+ * The list view only creates enough cells to fill the viewport and recycles them while scrolling.
+ */
+public class DialogCell extends ListCell<Message> {
+
+    /** Room left beside the bubble for the avatar, spacing and the scroll bar. */
+    private static final double SIDE_ALLOWANCE = 90.0;
+
+    private final DialogBox box = new DialogBox();
+
+    /**
+     * Creates a cell for the given list view.
+     *
+     * @param listView owning list view, used to size the text bubble
+     */
+    public DialogCell(ListView<Message> listView) {
+        setStyle("-fx-background-color: transparent; -fx-padding: 0;");
+        // Let the cell follow the list width instead of forcing a horizontal scroll bar.
+        setPrefWidth(0);
+        listView.widthProperty().addListener((obs, oldWidth, newWidth) ->
+                box.setMaxTextWidth(newWidth.doubleValue() - SIDE_ALLOWANCE));
+        box.setMaxTextWidth(listView.getWidth() - SIDE_ALLOWANCE);
+    }
+
+    @Override
+    protected void updateItem(Message message, boolean empty) {
+        super.updateItem(message, empty);
+        if (empty || message == null) {
+            setGraphic(null);
+        } else {
+            box.show(message);
+            setGraphic(box);
+        }
+    }
+}
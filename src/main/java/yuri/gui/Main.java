@@ -8,11 +8,13 @@ import javafx.stage.Stage;
 import yuri.Yuri;
 
 public class Main extends Application {
+    private MainWindow controller;
+
     @Override
     public void start(Stage stage) throws Exception {
         FXMLLoader loader = new FXMLLoader(Main.class.getResource("/view/MainWindow.fxml"));
         Scene scene = new Scene(loader.load());
-        MainWindow controller = loader.getController();
+        controller = loader.getController();
         controller.setYuri(new Yuri()); // <-- inject backend here
 
         stage.setTitle("Yuri");
@@ -21,6 +23,13 @@ public class Main extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        if (controller != null) {
+            controller.shutdown();
+        }
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -1,37 +1,81 @@
 package yuri.gui;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
-import javafx.scene.layout.VBox;
 import yuri.Yuri;
 
 /**
  * Controller for MainWindow. Wires the UI to the Yuri backend.
+ * Commands run on a single background worker (so they stay in order) and their replies are
+ * posted back to the FX thread; the window never waits on the task list or the disk.
+ * The conversation is a list of plain {@link Message}s shown through a virtualized list view.
  */
 public class MainWindow {
 
-    @FXML private ScrollPane scrollPane;
-    @FXML private VBox dialogContainer;
+    /** Edits arriving within this window are written to disk together. */
+    private static final long SAVE_COALESCE_MS = 200;
+
+    /** Oldest messages are dropped beyond this many, so a long session has bounded memory. */
+    private static final int MAX_HISTORY = 5000;
+
+    @FXML private ListView<Message> dialogList;
     @FXML private TextField userInput;
     @FXML private Button sendButton;
 
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "yuri-worker");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ScheduledExecutorService reminderTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "yuri-reminders");
+        t.setDaemon(true);
+        return t;
+    });
+
     private Yuri yuri;
 
-    /** Initializes auto-scroll. */
+    /** Sets up recycled dialog cells. */
     @FXML
     public void initialize() {
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
+        dialogList.setCellFactory(DialogCell::new);
+        dialogList.setFocusTraversable(false);
     }
 
     /** Injects the backend instance. Call this from Main after FXML load. */
     public void setYuri(Yuri yuri) {
         this.yuri = yuri;
+        yuri.coalesceSaves(SAVE_COALESCE_MS);
         // greeting bubble
-        dialogContainer.getChildren().add(
-                DialogBox.getYuriDialog(yuri.getGreeting())
-        );
+        append(Message.fromYuri(yuri.getGreeting()));
+        // reminders are taken on the worker, like commands, and shown as bubbles of their own
+        reminderTimer.scheduleAtFixedRate(() -> worker.execute(() -> {
+            String reminders = yuri.takeReminders();
+            if (!reminders.isEmpty()) {
+                Platform.runLater(() -> append(Message.fromYuri(reminders)));
+            }
+        }), 0, Yuri.REMINDER_CHECK_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /** Lets queued commands finish, then flushes pending saves. Call this when the window closes. */
+    public void shutdown() {
+        reminderTimer.shutdownNow();
+        worker.execute(yuri::shutdown);
+        worker.shutdown();
+        try {
+            worker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     /** Handles one round of user input. */
@@ -42,17 +86,27 @@ public class MainWindow {
             return;
         }
 
-        String response = yuri.getResponse(input);  // <- step 2 adds this
-
-        dialogContainer.getChildren().addAll(
-                DialogBox.getUserDialog(input),
-                DialogBox.getYuriDialog(response)
-        );
-
-        if (input.trim().equalsIgnoreCase("bye")) {
+        append(Message.fromUser(input));
+        userInput.clear();
+        boolean isBye = input.trim().equalsIgnoreCase("bye");
+        if (isBye) {
             userInput.setDisable(true);
             sendButton.setDisable(true);
         }
-        userInput.clear();
+
+        worker.execute(() -> {
+            String response = yuri.getResponse(input);
+            Platform.runLater(() -> append(Message.fromYuri(response)));
+        });
+    }
+
+    /** Adds a message to the history and scrolls to it. Must run on the FX thread. */
+    private void append(Message message) {
+        var items = dialogList.getItems();
+        items.add(message);
+        if (items.size() > MAX_HISTORY) {
+            items.remove(0, items.size() - MAX_HISTORY);
+        }
+        dialogList.scrollTo(items.size() - 1);
     }
 }
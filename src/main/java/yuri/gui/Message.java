@@ -0,0 +1,20 @@
+package yuri.gui;
+
+/**
+ * One entry in the conversation history.
+ *
+ * @param text   message text
+ * @param isUser true if typed by the user, false if it is a reply from Yuri
+ */
+public record Message(String text, boolean isUser) {
+
+    /** Returns a message typed by the user. */
+    public static Message fromUser(String text) {
+        return new Message(text, true);
+    }
+
+    /** Returns a reply from Yuri. */
+    public static Message fromYuri(String text) {
+        return new Message(text, false);
+    }
+}
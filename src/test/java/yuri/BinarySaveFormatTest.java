@@ -0,0 +1,92 @@
+package yuri;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinarySaveFormatTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writeThenRead_roundTripsAllTypes() throws IOException {
+        Path file = dir.resolve("tasks.bin");
+        Yuri.Task done = new Yuri.Todo("read böok");
+        done.mark();
+        done.id = 3;
+        List<Yuri.Task> tasks = List.of(done,
+                new Yuri.Deadline("return book", "2019-12-02"),
+                new Yuri.Event("book fair", "2019-12-10", "2019-12-12"),
+                new Yuri.RecurringDeadline("report", LocalDate.of(2026, 11, 2), Recurrence.WEEK),
+                new Yuri.RecurringEvent("rent", LocalDate.of(2026, 11, 1), LocalDate.of(2026, 11, 1),
+                        Recurrence.MONTH),
+                new Yuri.Todo("x".repeat(100_000)));
+        BinarySaveFormat.write(tasks, 4, file);
+
+        assertTrue(BinarySaveFormat.isBinary(file));
+        List<Yuri.Task> loaded = BinarySaveFormat.read(file);
+        assertEquals(4, BinarySaveFormat.readNextId(file));
+        assertEquals(3, loaded.get(0).getId());
+        assertEquals(tasks.size(), loaded.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(tasks.get(i).toSaveFormat(), loaded.get(i).toSaveFormat());
+        }
+    }
+
+    @Test
+    void reload_afterDeletingHighestIds_handsOutFreshIds() throws IOException {
+        String file = dir.resolve("tasks.bin").toString();
+        Storage storage = new Storage(file, Storage.Format.BINARY);
+        storage.load();
+        List<Yuri.Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Yuri.Task t = new Yuri.Todo("t" + i);
+            storage.assignId(t);
+            tasks.add(t);
+        }
+        storage.save(tasks.subList(0, 1));
+        storage.close();
+
+        Storage reloaded = new Storage(file, Storage.Format.BINARY);
+        assertEquals(1, reloaded.load().size());
+        Yuri.Task added = new Yuri.Todo("new");
+        reloaded.assignId(added);
+        assertEquals(5, added.getId(), "IDs of deleted tasks are not reused");
+        reloaded.close();
+    }
+
+    @Test
+    void load_textSnapshot_isMigratedToBinary() throws IOException {
+        Path file = dir.resolve("tasks.dat");
+        Files.writeString(file, "T | 1 | read book" + System.lineSeparator());
+        Storage storage = new Storage(file.toString(), Storage.Format.BINARY);
+
+        assertEquals(1, storage.load().size());
+        assertTrue(BinarySaveFormat.isBinary(file));
+        storage.close();
+    }
+
+    @Test
+    void migrateFrom_legacyTextWithJournal() throws IOException {
+        Path legacy = dir.resolve("duke.txt");
+        Files.writeString(legacy, "T | 0 | read book" + System.lineSeparator());
+        Files.writeString(dir.resolve("duke.txt.journal"), "M | 0" + System.lineSeparator());
+        Storage storage = new Storage(dir.resolve("duke.bin").toString(), Storage.Format.BINARY);
+
+        assertTrue(storage.migrateFrom(legacy.toString()));
+        List<Yuri.Task> loaded = storage.load();
+        assertEquals("T | 1 | read book", loaded.get(0).toSaveFormat());
+        assertFalse(Files.exists(legacy));
+        assertFalse(storage.migrateFrom(legacy.toString()));
+        storage.close();
+    }
+}
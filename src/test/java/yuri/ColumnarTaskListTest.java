@@ -0,0 +1,161 @@
+package yuri;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarTaskListTest {
+
+    private ColumnarTaskList tasks;
+
+    @BeforeEach
+    void setup() {
+        tasks = new ColumnarTaskList();
+    }
+
+    @Test
+    void get_materializesEachTaskType() {
+        tasks.add(new Yuri.Todo("read book"));
+        tasks.add(new Yuri.Deadline("return book", LocalDate.of(2019, 12, 2)));
+        tasks.add(new Yuri.Event("project meeting", LocalDate.of(2019, 12, 2), LocalDate.of(2019, 12, 3)));
+        tasks.mark(1);
+
+        assertEquals(3, tasks.size());
+        assertEquals("T | 0 | read book", tasks.get(0).toSaveFormat());
+        assertEquals("D | 1 | return book | 2019-12-02", tasks.get(1).toSaveFormat());
+        assertEquals("E | 0 | project meeting | 2019-12-02 | 2019-12-03", tasks.get(2).toSaveFormat());
+    }
+
+    @Test
+    void remove_shiftsColumnsAndDoneFlags() {
+        tasks.add(new Yuri.Todo("A"));
+        tasks.add(new Yuri.Todo("B"));
+        tasks.add(new Yuri.Todo("C"));
+        tasks.mark(2);
+
+        assertEquals("A", tasks.remove(0).getDescription());
+        assertEquals(2, tasks.size());
+        assertEquals("B", tasks.get(0).getDescription());
+        assertFalse(tasks.get(0).isDone);
+        assertTrue(tasks.get(1).isDone);
+    }
+
+    @Test
+    void indexOfId_findsTasksAfterRemovals() {
+        for (int i = 1; i <= 10; i++) {
+            Yuri.Task t = new Yuri.Todo("t" + i);
+            t.id = i * 2;
+            tasks.add(t);
+        }
+        tasks.removeAll(new int[] {0, 3});
+        assertEquals(0, tasks.indexOfId(4));
+        assertEquals(7, tasks.indexOfId(20));
+        assertEquals(-1, tasks.indexOfId(8));
+        assertEquals(20, tasks.get(7).getId());
+    }
+
+    @Test
+    void find_matchesNonAsciiDescriptions() {
+        tasks.add(new Yuri.Todo("Café crème"));
+        tasks.add(new Yuri.Todo("cafeteria lunch"));
+
+        assertArrayEquals(new int[] {0}, tasks.findPositions("CRÈ"));
+        assertArrayEquals(new int[] {0}, tasks.findPositions("café"));
+        assertArrayEquals(new int[] {1}, tasks.findPositions("cafe"));
+    }
+
+    @Test
+    void find_onLargeList_matchesIndexedSearchInOrder() {
+        TaskList expected = new TaskList();
+        String[] words = {"read", "book", "report", "milk", "gym"};
+        for (int i = 0; i < 3 * ColumnarTaskList.PARALLEL_SCAN_CUTOFF; i++) {
+            Yuri.Task t = new Yuri.Todo(words[i % 5] + " " + words[(i / 5) % 5] + " " + i);
+            expected.add(t);
+            tasks.add(t);
+        }
+        for (String query : new String[] {"report", "read book /or milk", "9999"}) {
+            assertArrayEquals(expected.findPositions(query), tasks.findPositions(query));
+        }
+    }
+
+    @Test
+    void snapshot_isUnaffectedByLaterChanges() {
+        tasks.add(new Yuri.Todo("A"));
+        List<Yuri.Task> snap = tasks.snapshot();
+        tasks.mark(0);
+        tasks.add(new Yuri.Todo("B"));
+
+        assertEquals(1, snap.size());
+        assertFalse(snap.get(0).isDone);
+        assertThrows(UnsupportedOperationException.class, () -> snap.add(new Yuri.Todo("C")));
+    }
+
+    @Test
+    void randomOperations_matchTaskList() {
+        String[] words = {"read", "book", "return", "lunch", "Meeting", "café", "report"};
+        LocalDate base = LocalDate.of(2024, 1, 1);
+        TaskList expected = new TaskList();
+        Random rnd = new Random(42);
+        for (int step = 0; step < 20_000; step++) {
+            int op = rnd.nextInt(12);
+            if (op < 5 || expected.size() == 0) {
+                String desc = words[rnd.nextInt(words.length)] + " " + words[rnd.nextInt(words.length)]
+                        + " " + "x".repeat(rnd.nextInt(40));
+                int kind = rnd.nextInt(8);
+                Yuri.Task t = kind < 3
+                        ? new Yuri.Deadline(desc, base.plusDays(rnd.nextInt(30)))
+                        : kind == 3
+                        ? new Yuri.RecurringDeadline(desc, base.plusDays(rnd.nextInt(30)),
+                                Recurrence.values()[rnd.nextInt(Recurrence.values().length)])
+                        : new Yuri.Todo(desc);
+                expected.add(t);
+                tasks.add(t);
+            } else if (op == 10) {
+                int[] done = expected.donePositions();
+                assertArrayEquals(done, tasks.donePositions());
+                List<Yuri.Task> gone = tasks.removeAll(done);
+                assertEquals(expected.removeAll(done).size(), gone.size());
+            } else if (op == 11) {
+                int[] positions = rnd.ints(5, 0, expected.size()).distinct().sorted().toArray();
+                List<Yuri.Task> gone = expected.removeAll(positions);
+                tasks.removeAll(positions);
+                assertEquals(expected.size(), tasks.size());
+                expected.insertAll(positions, gone);
+                tasks.insertAll(positions, gone);
+            } else if (op < 7) {
+                int i = rnd.nextInt(expected.size());
+                assertEquals(expected.remove(i).toSaveFormat(), tasks.remove(i).toSaveFormat());
+            } else {
+                int i = rnd.nextInt(expected.size());
+                if (op == 7) {
+                    expected.mark(i);
+                    tasks.mark(i);
+                } else if (op == 9 && expected.get(i).getRecurrence() != null) {
+                    LocalDate doneThrough = rnd.nextBoolean() ? null : base.plusDays(rnd.nextInt(40));
+                    expected.setDoneThrough(i, doneThrough);
+                    tasks.setDoneThrough(i, doneThrough);
+                } else {
+                    expected.unmark(i);
+                    tasks.unmark(i);
+                }
+            }
+        }
+
+        assertEquals(expected.size(), tasks.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toSaveFormat(), tasks.get(i).toSaveFormat());
+        }
+        for (String query : new String[] {"re", "book /or lunch", "meet rep", "caf"}) {
+            assertArrayEquals(expected.findPositions(query), tasks.findPositions(query));
+        }
+        for (int d = 0; d < 60; d += 7) {
+            assertArrayEquals(expected.dueOn(base.plusDays(d)), tasks.dueOn(base.plusDays(d)));
+            assertArrayEquals(expected.dueBefore(base.plusDays(d)), tasks.dueBefore(base.plusDays(d)));
+        }
+    }
+}
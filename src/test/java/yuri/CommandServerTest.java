@@ -0,0 +1,150 @@
+package yuri;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommandServerTest {
+
+    @TempDir
+    Path dir;
+
+    private CommandServer server;
+    private int port;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new CommandServer(new Yuri(new Storage(dir.resolve("tasks.txt").toString())));
+        port = server.start(0);
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop();
+    }
+
+    @Test
+    void repliesAreTerminatedByBlankLine() throws IOException {
+        try (Socket s = new Socket(InetAddress.getLoopbackAddress(), port);
+             PrintWriter out = new PrintWriter(s.getOutputStream(), true, StandardCharsets.UTF_8);
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8))) {
+            out.println("todo read book");
+            assertTrue(readReply(in).contains("[T][ ] read book"));
+            out.println("list");
+            assertTrue(readReply(in).contains("1.[T][ ] read book"));
+            out.println("bye");
+            assertTrue(readReply(in).startsWith("Bye"));
+            assertNull(in.readLine());
+        }
+    }
+
+    @Test
+    void use_onOneConnection_doesNotMoveAnother() throws IOException {
+        try (Socket a = new Socket(InetAddress.getLoopbackAddress(), port);
+             PrintWriter outA = new PrintWriter(a.getOutputStream(), true, StandardCharsets.UTF_8);
+             BufferedReader inA = new BufferedReader(new InputStreamReader(a.getInputStream(), StandardCharsets.UTF_8));
+             Socket b = new Socket(InetAddress.getLoopbackAddress(), port);
+             PrintWriter outB = new PrintWriter(b.getOutputStream(), true, StandardCharsets.UTF_8);
+             BufferedReader inB = new BufferedReader(new InputStreamReader(b.getInputStream(), StandardCharsets.UTF_8))) {
+            outA.println("todo read book");
+            readReply(inA);
+            outB.println("use work");
+            assertEquals(CommandServer.USE_REJECTED + "\n", readReply(inB));
+            outA.println("todo buy milk");
+            readReply(inA);
+            outA.println("list");
+            assertTrue(readReply(inA).contains("2.[T][ ] buy milk"));
+            outB.println("lists");
+            assertTrue(readReply(inB).contains("* main"));
+        }
+    }
+
+    @Test
+    void concurrentClients_allMutationsApplied() throws Exception {
+        List<Thread> clients = new ArrayList<>();
+        for (int c = 0; c < 4; c++) {
+            int id = c;
+            Thread t = new Thread(() -> {
+                try (Socket s = new Socket(InetAddress.getLoopbackAddress(), port);
+                     PrintWriter out = new PrintWriter(s.getOutputStream(), true, StandardCharsets.UTF_8);
+                     BufferedReader in = new BufferedReader(
+                             new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8))) {
+                    for (int i = 0; i < 50; i++) {
+                        out.println("todo client" + id + " item" + i);
+                        readReply(in);
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            clients.add(t);
+            t.start();
+        }
+        for (Thread t : clients) {
+            t.join();
+        }
+        assertTrue(server.execute("find item").contains(" 200."));
+    }
+
+    @Test
+    void stop_waitsForAQueuedWriteBeforeClosingTheSaveFile() throws Exception {
+        String file = dir.resolve("queued.txt").toString();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CommandServer slow = new CommandServer(new Yuri(new Storage(file)) {
+            @Override
+            public String getResponse(String input) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getResponse(input);
+            }
+        });
+        int slowPort = slow.start(0);
+        try (Socket s = new Socket(InetAddress.getLoopbackAddress(), slowPort);
+             PrintWriter out = new PrintWriter(s.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            out.println("todo written before stop");
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+            Thread stopper = new Thread(slow::stop);
+            stopper.start();
+            stopper.join(200);
+            assertTrue(stopper.isAlive(), "stop must wait for the writer");
+            release.countDown();
+            stopper.join(5000);
+            assertFalse(stopper.isAlive());
+        }
+
+        Yuri reopened = new Yuri(new Storage(file));
+        assertTrue(reopened.getResponse("list").contains("1.[T][ ] written before stop"));
+        reopened.shutdown();
+    }
+
+    private static String readReply(BufferedReader in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            sb.append(line).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -2,6 +2,8 @@ package yuri;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class DeadlineTest {
@@ -20,4 +22,28 @@ public class DeadlineTest {
         String s = d.toSaveFormat();
         assertTrue(s.contains("D | 0 | finish | 2020-01-05"));
     }
+
+    @Test
+    void toString_isCached_untilDoneStateChanges() {
+        Yuri.Deadline d = new Yuri.Deadline("return book", "2019-12-02");
+        String first = d.toString();
+        assertSame(first, d.toString());
+        d.mark();
+        assertEquals("[D][X] return book (by: Dec 2 2019)", d.toString());
+        d.unmark();
+        assertEquals(first, d.toString());
+    }
+
+    @Test
+    void setDoneThrough_onAOneOffDeadline_doesNothing() {
+        Yuri.Deadline d = new Yuri.Deadline("return book", "2019-12-02");
+        d.setDoneThrough(LocalDate.of(2019, 12, 2));
+        assertNull(d.getDoneThrough());
+        assertEquals("D | 0 | return book | 2019-12-02", d.toSaveFormat());
+
+        ColumnarTaskList tasks = new ColumnarTaskList();
+        tasks.add(d);
+        tasks.setDoneThrough(0, LocalDate.of(2019, 12, 2));
+        assertArrayEquals(new int[] {0}, tasks.dueOn(LocalDate.of(2019, 12, 2)));
+    }
 }
@@ -0,0 +1,73 @@
+package yuri;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void histogram_percentilesWithinBucketError() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 1000; v++) {
+            h.record(v * 1000);
+        }
+        assertEquals(1000, h.count());
+        assertEquals(1_000_000, h.maxNanos());
+        long p50 = h.percentileNanos(50);
+        long p99 = h.percentileNanos(99);
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 1.125, "p50 was " + p50);
+        assertTrue(p99 >= 990_000 && p99 <= 1_000_000, "p99 was " + p99);
+        assertEquals(0, new LatencyHistogram().percentileNanos(99));
+    }
+
+    @Test
+    void histogram_bucketsAreContiguous() {
+        for (long v = 0; v < 100_000; v++) {
+            int b = LatencyHistogram.bucketOf(v);
+            assertTrue(v <= LatencyHistogram.upperBound(b), "value " + v + " above its bucket");
+            assertTrue(b == 0 || v > LatencyHistogram.upperBound(b - 1), "value " + v + " below its bucket");
+        }
+    }
+
+    @Test
+    void stats_reportsCommandsPersistenceAndTasks() {
+        Yuri yuri = new Yuri(new Storage(dir.resolve("tasks.txt").toString()));
+        yuri.getResponse("todo read book");
+        yuri.getResponse("todo buy milk");
+        yuri.getResponse("mark 1");
+        yuri.getResponse("find book");
+        String stats = yuri.getResponse("stats");
+        yuri.shutdown();
+
+        assertTrue(stats.startsWith("Tasks: 2"), stats);
+        assertTrue(stats.contains("\n  todo              2"), stats);
+        assertTrue(stats.contains("\n  find              1"), stats);
+        assertTrue(stats.contains("Persist: 3 changes"), stats);
+        assertFalse(stats.endsWith("Bytes written: 0"), stats);
+    }
+
+    @Test
+    void bytesWritten_countsBufferedJournalRecordsBeforeFlush() throws Exception {
+        Storage storage = new Storage(dir.resolve("tasks.txt").toString());
+        Metrics metrics = new Metrics();
+        storage.setMetrics(metrics);
+        storage.load();
+        storage.setAutoFlush(false);
+        storage.appendAdd(new Yuri.Todo("café"));
+
+        String record = "A | T | 0 | café" + System.lineSeparator();
+        assertEquals(record.getBytes(StandardCharsets.UTF_8).length, metrics.getBytesWritten());
+        storage.flush();
+        assertEquals(Files.size(dir.resolve("tasks.txt.journal")), metrics.getBytesWritten());
+        storage.close();
+    }
+}
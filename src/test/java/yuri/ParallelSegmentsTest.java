@@ -0,0 +1,28 @@
+package yuri;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelSegmentsTest {
+
+    @Test
+    void map_belowCutoff_runsOneSegment() {
+        List<String> parts = ParallelSegments.map(5, 10, (from, to) -> from + "-" + to);
+        assertEquals(List.of("0-5"), parts);
+    }
+
+    @Test
+    void map_aboveCutoff_coversRangeInOrder() {
+        List<int[]> parts = ParallelSegments.map(100_000, 1000, (from, to) -> new int[] {from, to});
+        int expectedFrom = 0;
+        for (int[] part : parts) {
+            assertEquals(expectedFrom, part[0]);
+            assertTrue(part[1] > part[0]);
+            expectedFrom = part[1];
+        }
+        assertEquals(100_000, expectedFrom);
+    }
+}
@@ -43,4 +43,113 @@ public class ParserTest {
         assertThrows(Yuri.YuriException.class,
                 () -> parser.parseIndexOrThrow("mark -2", "mark"));
     }
+
+    @Test
+    void parseIndexOrThrow_extraWordsOrJunk_throws() {
+        assertThrows(Yuri.YuriException.class, () -> parser.parseIndexOrThrow("mark 1 2", "mark"));
+        assertThrows(Yuri.YuriException.class, () -> parser.parseIndexOrThrow("mark 1x", "mark"));
+        assertThrows(Yuri.YuriException.class, () -> parser.parseIndexOrThrow("mark 99999999999", "mark"));
+    }
+
+    @Test
+    void parsePositionsOrThrow_singleNumber_ok() throws Yuri.YuriException {
+        assertArrayEquals(new int[] {2}, parser.parsePositionsOrThrow("mark 3", "mark", 10));
+        assertArrayEquals(new int[] {4999}, parser.parsePositionsOrThrow("  mark   5000 ", "mark", 5000));
+    }
+
+    @Test
+    void parsePositionsOrThrow_singleNumberInvalid_throws() {
+        assertThrows(Yuri.YuriException.class, () -> parser.parsePositionsOrThrow("mark 0", "mark", 10));
+        assertThrows(Yuri.YuriException.class, () -> parser.parsePositionsOrThrow("mark -2", "mark", 10));
+        assertThrows(Yuri.YuriException.class, () -> parser.parsePositionsOrThrow("mark 11", "mark", 10));
+        assertThrows(Yuri.YuriException.class, () -> parser.parsePositionsOrThrow("mark 1 2", "mark", 10));
+        assertThrows(Yuri.YuriException.class, () -> parser.parsePositionsOrThrow("mark 1x", "mark", 10));
+        assertThrows(Yuri.YuriException.class,
+                () -> parser.parsePositionsOrThrow("mark 99999999999", "mark", 10));
+    }
+
+    @Test
+    void parsePositionsOrThrow_returnsArraysTheCallerOwns() throws Yuri.YuriException {
+        parser.parsePositionsOrThrow("mark 3", "mark", 10)[0] = 7;
+        parser.parsePositionsOrThrow("mark 3,3", "mark", 10)[0] = 7;
+        assertArrayEquals(new int[] {2}, parser.parsePositionsOrThrow("mark 3", "mark", 10));
+        assertArrayEquals(new int[] {2}, parser.parsePositionsOrThrow("mark 3,3", "mark", 10));
+    }
+
+    @Test
+    void isArgument_comparesTheOnlyArgument() {
+        assertTrue(parser.isArgument("delete DONE ", "done"));
+        assertFalse(parser.isArgument("delete done 2", "done"));
+        assertFalse(parser.isArgument("delete donex", "done"));
+        assertFalse(parser.isArgument("delete", "done"));
+    }
+
+    @Test
+    void parsePositionsOrThrow_rangesAndLists_sortedZeroBased() throws Yuri.YuriException {
+        assertArrayEquals(new int[] {0, 1, 2}, parser.parsePositionsOrThrow("mark 1-3", "mark", 10));
+        assertArrayEquals(new int[] {2, 6, 8}, parser.parsePositionsOrThrow("unmark 9,3, 7", "unmark", 10));
+        assertArrayEquals(new int[] {1, 2, 3, 4}, parser.parsePositionsOrThrow("delete 2-4,3-5", "delete", 10));
+        assertArrayEquals(new int[] {4}, parser.parsePositionsOrThrow("mark 5", "mark", 10));
+    }
+
+    @Test
+    void parsePositionsOrThrow_taskIds_resolvedThroughLookup() throws Yuri.YuriException {
+        assertArrayEquals(new int[] {0, 4}, parser.parsePositionsOrThrow("mark #42, 1", "mark", 10,
+                id -> id == 42 ? 4 : -1));
+        Yuri.YuriException ex = assertThrows(Yuri.YuriException.class,
+                () -> parser.parsePositionsOrThrow("delete #7", "delete", 10, id -> -1));
+        assertTrue(ex.getMessage().contains("#7"));
+    }
+
+    @Test
+    void parsePositionsOrThrow_invalid_throws() {
+        assertThrows(Yuri.YuriException.class, () -> parser.parsePositionsOrThrow("mark", "mark", 10));
+        assertThrows(Yuri.YuriException.class, () -> parser.parsePositionsOrThrow("mark 5-2", "mark", 10));
+        assertThrows(Yuri.YuriException.class, () -> parser.parsePositionsOrThrow("mark 1,", "mark", 10));
+        assertThrows(Yuri.YuriException.class, () -> parser.parsePositionsOrThrow("mark 0-3", "mark", 10));
+        assertThrows(Yuri.YuriException.class, () -> parser.parsePositionsOrThrow("mark 1-11", "mark", 10));
+    }
+
+    @Test
+    void commandOf_matchesWholeWordIgnoringCase() {
+        assertEquals(Command.DEADLINE, parser.commandOf("DeadLine x /by 2019-12-02"));
+        assertEquals(Command.LIST, parser.commandOf("list"));
+        assertEquals(Command.UNKNOWN, parser.commandOf("listener"));
+        assertEquals(Command.UNKNOWN, parser.commandOf("42"));
+    }
+
+    @Test
+    void indexOfToken_caseInsensitive() {
+        assertEquals(12, parser.indexOfToken("return book /BY 2019-12-02", "/by"));
+        assertEquals(-1, parser.indexOfToken("return book", "/by"));
+    }
+
+    @Test
+    void tokenizingHotPath_allocatesNothing() throws Yuri.YuriException {
+        com.sun.management.ThreadMXBean mx =
+                (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        String mark = "mark 42";
+        String deadline = "deadline return book /by 2019-12-02";
+        int sink = 0;
+        for (int i = 0; i < 20_000; i++) { // warm up
+            sink += runHotPath(mark, deadline);
+        }
+        long before = mx.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < 20_000; i++) {
+            sink += runHotPath(mark, deadline);
+        }
+        long allocated = mx.getThreadAllocatedBytes(tid) - before;
+        assertTrue(sink > 0);
+        // a small allowance covers the measurement call itself
+        assertTrue(allocated < 1024, "hot path allocated " + allocated + " bytes");
+    }
+
+    private int runHotPath(String mark, String deadline) throws Yuri.YuriException {
+        return parser.commandOf(mark).ordinal()
+                + parser.parseIndexOrThrow(mark, "mark")
+                + parser.commandOf(deadline).ordinal()
+                + parser.indexOfToken(deadline, "/by")
+                + (parser.startsWithWord(deadline, "deadline") ? 1 : 0);
+    }
 }
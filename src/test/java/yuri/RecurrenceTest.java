@@ -0,0 +1,149 @@
+package yuri;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecurrenceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void weekly_findsOccurrencesAroundADay() {
+        Recurrence week = Recurrence.WEEK;
+        LocalDate anchor = LocalDate.of(2026, 11, 2);
+        assertEquals(anchor, week.nextOnOrAfter(anchor, LocalDate.of(2020, 1, 1)));
+        assertEquals(LocalDate.of(2026, 11, 16), week.nextOnOrAfter(anchor, LocalDate.of(2026, 11, 10)));
+        assertEquals(LocalDate.of(2026, 11, 9), week.lastBefore(anchor, LocalDate.of(2026, 11, 16)));
+        assertNull(week.lastBefore(anchor, anchor));
+        assertTrue(week.occursOn(anchor, LocalDate.of(2036, 10, 20)));
+        assertFalse(week.occursOn(anchor, LocalDate.of(2036, 10, 21)));
+        assertFalse(week.occursOn(anchor, anchor.minusWeeks(1)));
+    }
+
+    @Test
+    void monthly_keepsDayOfMonthWhereItExists() {
+        Recurrence month = Recurrence.MONTH;
+        LocalDate anchor = LocalDate.of(2024, 1, 31);
+        assertEquals(LocalDate.of(2024, 2, 29), month.nextOnOrAfter(anchor, LocalDate.of(2024, 2, 1)));
+        assertEquals(LocalDate.of(2024, 3, 31), month.nextOnOrAfter(anchor, LocalDate.of(2024, 3, 1)));
+        assertEquals(LocalDate.of(2024, 4, 30), month.lastBefore(anchor, LocalDate.of(2024, 5, 31)));
+        assertTrue(month.occursOn(anchor, LocalDate.of(2025, 2, 28)));
+        assertFalse(month.occursOn(anchor, LocalDate.of(2024, 3, 29)));
+        assertNull(Recurrence.fromWord("fortnight"));
+        assertEquals(Recurrence.DAY, Recurrence.fromWord("Day"));
+    }
+
+    @Test
+    void nextOpen_skipsOccurrencesDoneThroughADay() {
+        Recurrence week = Recurrence.WEEK;
+        LocalDate anchor = LocalDate.of(2026, 10, 1);
+        assertEquals(anchor, week.nextOpen(anchor, null, anchor));
+        assertEquals(LocalDate.of(2026, 10, 15), week.nextOpen(anchor, LocalDate.of(2026, 10, 8), anchor));
+        assertEquals(LocalDate.of(2026, 10, 15),
+                week.nextOpen(anchor, LocalDate.of(2026, 10, 8), LocalDate.of(2026, 10, 8)));
+        assertEquals(LocalDate.of(2026, 10, 22),
+                week.nextOpen(anchor, LocalDate.of(2026, 10, 8), LocalDate.of(2026, 10, 16)));
+    }
+
+    @Test
+    void yuri_mark_completesOneOccurrenceAndOverdueMovesOn() throws Exception {
+        LocalDate anchor = LocalDate.now().minusWeeks(2);
+        Yuri yuri = new Yuri(new Storage(dir.resolve("tasks.txt").toString()));
+        yuri.getResponse("deadline report /by " + anchor + " /every week");
+
+        assertTrue(yuri.getResponse("overdue").contains("1.[D][ ] report (by: " + fmt(anchor) + ", every week)"));
+        assertTrue(yuri.getResponse("mark 1").startsWith("Nice! I've marked the " + fmt(anchor) + " occurrence"));
+        String overdue = yuri.getResponse("overdue");
+        assertTrue(overdue.contains("1.[D][ ] report (by: " + fmt(anchor.plusWeeks(1)) + ", every week)"), overdue);
+
+        yuri.getResponse("mark 1");
+        assertEquals("Nothing is overdue. Nice!", yuri.getResponse("overdue"));
+        assertTrue(yuri.getResponse("due " + LocalDate.now()).contains("1.[D][ ] report"),
+                "later occurrences stay open");
+        assertTrue(yuri.getResponse("list").contains(", every week, done through " + fmt(anchor.plusWeeks(1))));
+
+        assertTrue(yuri.getResponse("unmark 1").startsWith("OK, I've marked the " + fmt(anchor.plusWeeks(1))));
+        assertTrue(yuri.getResponse("overdue").contains("(by: " + fmt(anchor.plusWeeks(1)) + ", every week)"));
+        yuri.getResponse("undo");
+        assertEquals("Nothing is overdue. Nice!", yuri.getResponse("overdue"));
+        yuri.shutdown();
+    }
+
+    @Test
+    void yuri_due_printsTheOccurrenceDate() {
+        Yuri yuri = new Yuri(new Storage(dir.resolve("tasks.txt").toString()));
+        yuri.getResponse("deadline report /by 2026-10-01 /every week");
+
+        assertTrue(yuri.getResponse("due 2026-10-15").contains("1.[D][ ] report (by: Oct 15 2026, every week)"));
+        assertTrue(yuri.getResponse("due before 2026-10-20")
+                .contains("1.[D][ ] report (by: Oct 1 2026, every week)"));
+        yuri.getResponse("mark 1");
+        yuri.getResponse("mark 1");
+        assertTrue(yuri.getResponse("due 2026-10-08").startsWith("No pending deadlines"));
+        assertTrue(yuri.getResponse("due before 2026-10-20")
+                .contains("1.[D][ ] report (by: Oct 15 2026, every week)"));
+        yuri.shutdown();
+    }
+
+    @Test
+    void doneOccurrences_surviveRestartInTextAndBinary() throws Exception {
+        for (Storage.Format format : Storage.Format.values()) {
+            String file = dir.resolve("tasks-" + format).toString();
+            Yuri yuri = new Yuri(new Storage(file, format));
+            yuri.getResponse("deadline report /by 2026-10-01 /every week");
+            yuri.getResponse("event standup /from 2026-10-01 /to 2026-10-01 /every day");
+            yuri.getResponse("mark 1-2");
+            yuri.getResponse("mark 1");
+            yuri.shutdown();
+
+            Storage storage = new Storage(file, format);
+            List<Yuri.Task> replayed = storage.load();
+            assertEquals(LocalDate.of(2026, 10, 8), replayed.get(0).getDoneThrough(), format + " journal");
+            assertEquals(LocalDate.of(2026, 10, 1), replayed.get(1).getDoneThrough(), format + " journal");
+            storage.save(replayed);
+            storage.close();
+
+            Storage compacted = new Storage(file, format);
+            List<Yuri.Task> loaded = compacted.load();
+            assertEquals("D | 0 | report | 2026-10-01 | every week | done 2026-10-08",
+                    loaded.get(0).toSaveFormat(), format + " snapshot");
+            assertEquals(LocalDate.of(2026, 10, 1), loaded.get(1).getDoneThrough(), format + " snapshot");
+            assertFalse(loaded.get(0).isDone);
+            compacted.close();
+        }
+    }
+
+    @Test
+    void yuri_every_addsOneRuleThatSurvivesRestart() throws Exception {
+        String file = dir.resolve("tasks.txt").toString();
+        Yuri yuri = new Yuri(new Storage(file));
+        assertTrue(yuri.getResponse("deadline report /by 2026-11-02 /every week")
+                .contains("[D][ ] report (by: Nov 2 2026, every week)"));
+        assertTrue(yuri.getResponse("event standup /from 2026-11-02 /to 2026-11-02 /every day")
+                .contains("(from: Nov 2 2026 to: Nov 2 2026, every day)"));
+        assertTrue(yuri.getResponse("deadline x /by 2026-11-02 /every year").contains("/every week"));
+        assertTrue(yuri.getResponse("due 2027-03-01").contains("1.[D][ ] report"));
+        assertTrue(yuri.getResponse("due 2027-03-02").startsWith("No pending deadlines"));
+        yuri.shutdown();
+
+        String saved = Files.readString(Path.of(file)) + Files.readString(Path.of(file + ".journal"));
+        assertEquals(2, saved.split("every ", -1).length - 1, "one record per rule");
+        Yuri reopened = new Yuri(new Storage(file));
+        assertTrue(reopened.getResponse("list")
+                .contains("2.[E][ ] standup (from: Nov 2 2026 to: Nov 2 2026, every day)"));
+        reopened.shutdown();
+    }
+
+    private static String fmt(LocalDate day) {
+        return day.format(DateTimeFormatter.ofPattern("MMM d yyyy"));
+    }
+}
@@ -0,0 +1,131 @@
+package yuri;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReminderQueueTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2020, 1, 10);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void takeDue_remindsWithinLeadTimeOnce() {
+        Yuri.Task done = new Yuri.Deadline("done", "2020-01-10");
+        done.mark();
+        TaskList tasks = numbered(
+                new Yuri.Deadline("tomorrow", "2020-01-11"),
+                new Yuri.Deadline("later", "2020-01-15"),
+                new Yuri.Todo("todo"),
+                new Yuri.Event("fair", "2020-01-10", "2020-01-12"),
+                new Yuri.Deadline("yesterday", "2020-01-09"),
+                done);
+        ReminderQueue queue = new ReminderQueue(1);
+
+        assertArrayEquals(new int[] {3, 0}, queue.takeDue(tasks, TODAY));
+        assertArrayEquals(new int[0], queue.takeDue(tasks, TODAY));
+        assertArrayEquals(new int[0], queue.takeDue(tasks, TODAY.plusDays(3)));
+        assertArrayEquals(new int[] {1}, queue.takeDue(tasks, TODAY.plusDays(4)));
+    }
+
+    @Test
+    void schedule_addedAndUnmarkedTasks_skipsDeletedAndMarked() {
+        TaskList tasks = numbered(new Yuri.Deadline("a", "2020-01-20"), new Yuri.Deadline("b", "2020-01-20"));
+        ReminderQueue queue = new ReminderQueue(0);
+        assertArrayEquals(new int[0], queue.takeDue(tasks, TODAY));
+
+        Yuri.Task added = new Yuri.Deadline("added", "2020-01-12");
+        added.id = 3;
+        tasks.add(added);
+        queue.schedule(added);
+        tasks.remove(0);
+        tasks.mark(0);
+        assertArrayEquals(new int[] {1}, queue.takeDue(tasks, LocalDate.of(2020, 1, 12)));
+        assertArrayEquals(new int[0], queue.takeDue(tasks, LocalDate.of(2020, 1, 20)));
+
+        tasks.unmark(0);
+        queue.schedule(tasks.get(0));
+        assertArrayEquals(new int[] {0}, queue.takeDue(tasks, LocalDate.of(2020, 1, 20)));
+    }
+
+    @Test
+    void takeDue_recurringTask_remindsOfEachOccurrenceInTurn() {
+        TaskList tasks = numbered(
+                new Yuri.RecurringDeadline("standup notes", LocalDate.of(2019, 6, 3), Recurrence.DAY),
+                new Yuri.RecurringEvent("review", LocalDate.of(2019, 12, 13), LocalDate.of(2019, 12, 13),
+                        Recurrence.WEEK));
+        ReminderQueue queue = new ReminderQueue(1);
+
+        long today = TODAY.toEpochDay();
+        assertArrayEquals(new long[] {today << 32, today << 32 | 1}, queue.takeDueByDate(tasks, TODAY));
+        // the next day's notes are within the lead time already, the next review is not
+        assertArrayEquals(new long[] {(today + 1) << 32}, queue.takeDueByDate(tasks, TODAY));
+        assertArrayEquals(new int[0], queue.takeDue(tasks, TODAY));
+        assertArrayEquals(new long[] {(today + 6) << 32, (today + 7) << 32 | 1},
+                queue.takeDueByDate(tasks, TODAY.plusDays(6)));
+        assertArrayEquals(new int[] {0}, queue.takeDue(tasks, TODAY.plusDays(6)));
+        assertArrayEquals(new int[0], queue.takeDue(tasks, TODAY.plusDays(6)));
+        assertArrayEquals(new int[] {0, 1}, queue.takeDue(tasks, TODAY.plusDays(13)));
+    }
+
+    @Test
+    void takeDue_onLazilyLoadedList_parsesOnlyWhatItLooksUp() throws IOException {
+        Path file = dir.resolve("lazy.txt");
+        List<String> lines = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            lines.add(i == 500 ? "D | 0 | report | 2020-01-11 | #500"
+                    : i == 700 ? "E | 0 | standup | 2019-12-12 | 2019-12-12 | every week | #700"
+                    : i == 800 ? "D | 1 | done | 2020-01-10 | #800"
+                    : "T | 0 | todo " + i + " | #" + i);
+        }
+        Files.write(file, lines);
+        LazyTaskList lazy = (LazyTaskList) SaveFileLoader.index(file);
+        TaskList tasks = new TaskList(lazy);
+
+        assertArrayEquals(new int[] {499}, new ReminderQueue(1).takeDue(tasks, TODAY));
+        assertArrayEquals(new int[] {699}, new ReminderQueue(1).takeDue(tasks, LocalDate.of(2020, 1, 15)));
+        int parsed = 0;
+        for (int i = 0; i < lazy.size(); i++) {
+            parsed += lazy.isParsed(i) ? 1 : 0;
+        }
+        // the two reminders plus the binary-search probes of two ID lookups
+        assertTrue(parsed <= 2 + 2 * 11, parsed + " tasks parsed");
+        assertFalse(lazy.isParsed(799));
+    }
+
+    @Test
+    void yuri_takeReminders_describesEachTaskAndCapsTheList() {
+        Yuri yuri = new Yuri(new Storage(dir.resolve("tasks.txt").toString()));
+        assertEquals("", yuri.takeReminders(TODAY));
+        yuri.getResponse("deadline report /by 2020-01-11");
+        yuri.getResponse("event trip /from 2020-01-10 /to 2020-01-12");
+        assertEquals("Reminders:"
+                + "\n 2.[E][ ] trip (from: Jan 10 2020 to: Jan 12 2020), starts today"
+                + "\n 1.[D][ ] report (by: Jan 11 2020), due tomorrow", yuri.takeReminders(TODAY));
+
+        for (int i = 0; i < Yuri.MAX_REMINDERS_SHOWN + 2; i++) {
+            yuri.getResponse("deadline d" + i + " /by 2020-01-11");
+        }
+        String reminders = yuri.takeReminders(TODAY);
+        assertEquals(Yuri.MAX_REMINDERS_SHOWN + 2, reminders.split("\n").length);
+        assertTrue(reminders.endsWith("\n ...and 2 more."));
+        yuri.shutdown();
+    }
+
+    private static TaskList numbered(Yuri.Task... tasks) {
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i].id = i + 1;
+        }
+        return new TaskList(List.of(tasks));
+    }
+}
@@ -0,0 +1,137 @@
+package yuri;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SaveFileLoaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void parseLine_allTypes_roundTrip() {
+        String[] lines = {
+            "T | 1 | read book",
+            "D | 0 | return book | 2019-12-02",
+            "E | 0 | book fair | 2019-12-10 | 2019-12-12",
+        };
+        for (String line : lines) {
+            assertEquals(line, SaveFileLoader.parseLine(line).toSaveFormat());
+        }
+    }
+
+    @Test
+    void parseLine_toleratesSpacingAroundPipes() {
+        Yuri.Task t = SaveFileLoader.parseLine("D|1|  finish |2020-01-05");
+        assertEquals("D | 1 | finish | 2020-01-05", t.toSaveFormat());
+    }
+
+    @Test
+    void parseLine_trailingIdField_setsId() {
+        assertEquals(7, SaveFileLoader.parseLine("T | 0 | read book | #7").getId());
+        assertEquals(12, SaveFileLoader.parseLine("E | 1 | fair | 2019-12-10 | 2019-12-12 | #12").getId());
+        assertEquals(0, SaveFileLoader.parseLine("D | 0 | return book | 2019-12-02").getId());
+    }
+
+    @Test
+    void parseLine_recurringTasks_keepRuleAndId() {
+        Yuri.Task d = SaveFileLoader.parseLine("D | 0 | report | 2026-11-02 | every week | #5");
+        assertEquals(Recurrence.WEEK, d.getRecurrence());
+        assertEquals(5, d.getId());
+        assertEquals("D | 0 | report | 2026-11-02 | every week", d.toSaveFormat());
+        Yuri.Task e = SaveFileLoader.parseLine("E | 1 | rent | 2026-11-01 | 2026-11-01 | every month");
+        assertEquals(Recurrence.MONTH, e.getRecurrence());
+        assertNull(SaveFileLoader.parseLine("D | 0 | report | 2026-11-02 | #5").getRecurrence());
+        assertNull(SaveFileLoader.parseLine("D | 0 | report | 2026-11-02 | every year").getRecurrence());
+    }
+
+    @Test
+    void parseLine_malformed_returnsNull() {
+        assertNull(SaveFileLoader.parseLine("T | 0 | "));
+        assertNull(SaveFileLoader.parseLine("X | 0 | what"));
+        assertNull(SaveFileLoader.parseLine("D | 0 | no date"));
+        assertNull(SaveFileLoader.parseLine("D | 0 | bad date | 2020-13-45"));
+    }
+
+    @Test
+    void load_largeFile_keepsOrderAcrossChunks() throws IOException {
+        Path file = dir.resolve("big.txt");
+        int n = 0;
+        try (BufferedWriter w = Files.newBufferedWriter(file)) {
+            while (Files.size(file) <= 2L * SaveFileLoader.CHUNK_SIZE) {
+                for (int i = 0; i < 10_000; i++, n++) {
+                    w.write("D | " + (n % 2) + " | task " + n + " | 2024-02-29\r\n");
+                }
+                w.flush();
+            }
+        }
+
+        List<Yuri.Task> tasks = SaveFileLoader.load(file);
+        assertEquals(n, tasks.size());
+        for (int i = 0; i < n; i += 997) {
+            assertEquals("task " + i, tasks.get(i).getDescription());
+            assertEquals(i % 2 == 1, tasks.get(i).isDone);
+        }
+    }
+
+    @Test
+    void load_linesLongerThanTheScratchBuffer_areParsedWhole() throws IOException {
+        Path file = dir.resolve("long.txt");
+        String longName = "x".repeat(1000);
+        Files.writeString(file, "T | 0 | short\r\nT | 1 | " + longName + "\r\n\r\nT | 0 | " + longName + "y");
+
+        List<Yuri.Task> tasks = SaveFileLoader.load(file);
+        assertEquals(3, tasks.size());
+        assertEquals("short", tasks.get(0).getDescription());
+        assertEquals(longName, tasks.get(1).getDescription());
+        assertTrue(tasks.get(1).isDone);
+        assertEquals(longName + "y", tasks.get(2).getDescription());
+    }
+
+    @Test
+    void readNextId_malformedUtf8AfterTheHeader_isIgnored() throws IOException {
+        Path file = dir.resolve("tasks.txt");
+        byte[] header = "# next-id 42\nT | 0 | caf".getBytes(StandardCharsets.US_ASCII);
+        byte[] rest = {(byte) 0xE9, ' ', '|', ' ', '#', '7', '\n'};
+        Files.write(file, header);
+        Files.write(file, rest, StandardOpenOption.APPEND);
+
+        assertEquals(42, SaveFileLoader.readNextId(file));
+        assertEquals(1, SaveFileLoader.load(file).size());
+        Files.writeString(file, "# next-id " + "9".repeat(20) + "\n");
+        assertEquals(0, SaveFileLoader.readNextId(file));
+        Files.writeString(file, "T | 0 | read book\n");
+        assertEquals(0, SaveFileLoader.readNextId(file));
+    }
+
+    @Test
+    void index_matchesLoad_andSkipsMalformedLines() throws IOException {
+        Path file = dir.resolve("lazy.txt");
+        Files.write(file, List.of(
+                SaveFileLoader.NEXT_ID_HEADER + "5",
+                "T | 1 | read book | #1",
+                "D | 0 | bad date | 2021-02-29 | #2",
+                "D | 0 | leap day | 2024-02-29 | #3",
+                "E | 0 | fair | 2019-12-10 | 2019-12-12 | #4",
+                "X | 0 | what"));
+
+        List<Yuri.Task> eager = SaveFileLoader.load(file);
+        List<Yuri.Task> lazy = SaveFileLoader.index(file);
+        assertEquals(3, lazy.size());
+        for (int i = lazy.size() - 1; i >= 0; i--) {
+            assertEquals(eager.get(i).toSaveFormat(), lazy.get(i).toSaveFormat());
+            assertEquals(eager.get(i).getId(), lazy.get(i).getId());
+        }
+        assertSame(lazy.get(1), lazy.get(1));
+    }
+}
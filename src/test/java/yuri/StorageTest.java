@@ -0,0 +1,300 @@
+package yuri;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StorageTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void journal_replaysAddMarkDelete_onLoad() throws IOException {
+        String file = dir.resolve("tasks.txt").toString();
+        Storage storage = new Storage(file);
+        storage.load();
+        storage.appendAdd(new Yuri.Todo("A"));
+        storage.appendAdd(new Yuri.Deadline("B", "2020-01-05"));
+        storage.appendAdd(new Yuri.Todo("C"));
+        storage.appendDone(1, true);
+        storage.appendDelete(0);
+        storage.close();
+
+        List<Yuri.Task> loaded = new Storage(file).load();
+        assertEquals(2, loaded.size());
+        assertEquals("D | 1 | B | 2020-01-05", loaded.get(0).toSaveFormat());
+        assertEquals("T | 0 | C", loaded.get(1).toSaveFormat());
+    }
+
+    @Test
+    void journal_bulkRecords_replayAsOneRecordEach() throws IOException {
+        Path file = dir.resolve("tasks.txt");
+        Storage storage = new Storage(file.toString());
+        storage.load();
+        for (int i = 0; i < 6; i++) {
+            storage.appendAdd(new Yuri.Todo("T" + i));
+        }
+        storage.appendDone(new int[] {0, 1, 2, 4}, true);
+        storage.appendDelete(new int[] {1, 2, 5});
+        storage.close();
+
+        List<String> journal = Files.readAllLines(dir.resolve("tasks.txt.journal"));
+        assertEquals("M | 0-2,4", journal.get(6));
+        assertEquals("X | 1-2,5", journal.get(7));
+        List<Yuri.Task> loaded = new Storage(file.toString()).load();
+        assertEquals(3, loaded.size());
+        assertEquals("T | 1 | T0", loaded.get(0).toSaveFormat());
+        assertEquals("T | 0 | T3", loaded.get(1).toSaveFormat());
+        assertEquals("T | 1 | T4", loaded.get(2).toSaveFormat());
+    }
+
+    @Test
+    void journal_insertRecords_restoreTasksAtTheirPositions() throws IOException {
+        Path file = dir.resolve("tasks.txt");
+        Storage storage = new Storage(file.toString());
+        storage.load();
+        List<Yuri.Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Yuri.Task t = new Yuri.Todo("T" + i);
+            storage.assignId(t);
+            storage.appendAdd(t);
+            tasks.add(t);
+        }
+        storage.save(tasks);
+        storage.appendDelete(new int[] {1, 3});
+        tasks.get(3).mark();
+        storage.appendInsert(new int[] {1, 3}, List.of(tasks.get(1), tasks.get(3)));
+        storage.close();
+
+        assertEquals("I | 3 | T | 1 | T3 | #4", Files.readAllLines(dir.resolve("tasks.txt.journal")).get(2));
+        List<Yuri.Task> loaded = new Storage(file.toString()).load();
+        assertEquals(5, loaded.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("T" + i, loaded.get(i).getDescription());
+            assertEquals(i + 1, loaded.get(i).getId());
+        }
+        assertTrue(loaded.get(3).isDone);
+    }
+
+    @Test
+    void ids_surviveRestart_andAreNeverReused() throws IOException {
+        Path file = dir.resolve("tasks.txt");
+        Storage storage = new Storage(file.toString());
+        storage.load();
+        for (String d : new String[]{"A", "B", "C"}) {
+            Yuri.Task t = new Yuri.Todo(d);
+            storage.assignId(t);
+            storage.appendAdd(t);
+        }
+        storage.appendDelete(2);
+        storage.save(storage.load());
+        storage.close();
+
+        Storage reopened = new Storage(file.toString());
+        List<Yuri.Task> loaded = reopened.load();
+        assertEquals(2, loaded.get(1).getId());
+        Yuri.Task next = new Yuri.Todo("D");
+        reopened.assignId(next);
+        assertEquals(4, next.getId());
+        reopened.close();
+    }
+
+    @Test
+    void save_nonAsciiDescriptions_roundTripAsUtf8() throws IOException {
+        Path file = dir.resolve("tasks.txt");
+        Storage storage = new Storage(file.toString());
+        storage.load();
+        List<Yuri.Task> tasks = new ArrayList<>();
+        for (String d : new String[]{"café", "日本語のメモ", "emoji 🎉"}) {
+            Yuri.Task t = new Yuri.Todo(d);
+            storage.assignId(t);
+            tasks.add(t);
+        }
+        storage.save(tasks);
+        storage.close();
+
+        String raw = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        assertTrue(raw.contains("T | 0 | café | #1"), raw);
+        Storage reopened = new Storage(file.toString());
+        List<Yuri.Task> loaded = reopened.load();
+        assertEquals(3, loaded.size());
+        assertEquals("日本語のメモ", loaded.get(1).getDescription());
+        assertEquals("emoji 🎉", loaded.get(2).getDescription());
+        reopened.close();
+    }
+
+    @Test
+    void load_legacyFileWithoutIds_isNumberedOnce() throws IOException {
+        Path file = dir.resolve("tasks.txt");
+        Files.writeString(file, "T | 0 | A" + System.lineSeparator() + "T | 1 | B" + System.lineSeparator());
+
+        List<Yuri.Task> first = new Storage(file.toString()).load();
+        List<Yuri.Task> second = new Storage(file.toString()).load();
+        assertEquals(1, first.get(0).getId());
+        assertEquals(2, second.get(1).getId());
+        assertTrue(Files.readString(file).contains("T | 1 | B | #2"));
+    }
+
+    @Test
+    void compaction_foldsJournalIntoSnapshot() throws IOException {
+        Path file = dir.resolve("tasks.txt");
+        Storage storage = new Storage(file.toString(), 2);
+        TaskList tasks = new TaskList(storage.load());
+        for (String d : new String[]{"A", "B", "C"}) {
+            Yuri.Task t = new Yuri.Todo(d);
+            tasks.add(t);
+            storage.appendAdd(t);
+            storage.compactIfDue(tasks::snapshot);
+        }
+        storage.close();
+
+        assertTrue(Files.readString(file).contains("T | 0 | B"));
+        List<Yuri.Task> loaded = new Storage(file.toString()).load();
+        assertEquals(3, loaded.size());
+        assertEquals("C", loaded.get(2).getDescription());
+    }
+
+    @Test
+    void interruptedCompaction_beforeSnapshotWritten_replaysRotatedJournal() throws IOException {
+        Path file = dir.resolve("tasks.txt");
+        Files.writeString(file, "T | 0 | A" + System.lineSeparator());
+        Files.writeString(dir.resolve("tasks.txt.journal.old"), "A | T | 0 | B" + System.lineSeparator());
+        Files.writeString(dir.resolve("tasks.txt.journal"), "M | 1" + System.lineSeparator());
+        Files.writeString(dir.resolve("tasks.txt.tmp"), "");
+
+        List<Yuri.Task> loaded = new Storage(file.toString()).load();
+        assertEquals(2, loaded.size());
+        assertTrue(loaded.get(1).isDone);
+        assertFalse(Files.exists(dir.resolve("tasks.txt.journal.old")));
+    }
+
+    @Test
+    void groupCommit_buffersJournalUntilFlush() throws IOException {
+        Path file = dir.resolve("tasks.txt");
+        Path journal = dir.resolve("tasks.txt.journal");
+        Storage storage = new Storage(file.toString());
+        storage.load();
+        storage.setAutoFlush(false);
+        storage.appendAdd(new Yuri.Todo("A"));
+        storage.appendDone(0, true);
+        assertEquals(0, Files.size(journal));
+
+        storage.flush();
+        assertEquals(2, Files.readAllLines(journal).size());
+        storage.close();
+    }
+
+    @Test
+    void flushDelay_coalescesBurstIntoBackgroundFlush() throws Exception {
+        Path journal = dir.resolve("tasks.txt.journal");
+        Storage storage = new Storage(dir.resolve("tasks.txt").toString());
+        storage.load();
+        storage.setFlushDelay(50);
+        for (int i = 0; i < 10; i++) {
+            storage.appendAdd(new Yuri.Todo("T" + i));
+        }
+        assertEquals(0, Files.size(journal));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (Files.size(journal) == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(10, Files.readAllLines(journal).size());
+        storage.close();
+    }
+
+    @Test
+    void externalAppend_readsOnlyCompleteNewLines() throws IOException {
+        Path file = dir.resolve("tasks.txt");
+        Storage storage = new Storage(file.toString());
+        storage.load();
+        storage.save(List.of(new Yuri.Todo("A")));
+        storage.checkForExternalChange();
+        assertFalse(storage.hasExternalChange(), "own writes are not external changes");
+
+        Files.writeString(file, "T | 0 | B\nT | 1 | C | #40\nT | 0 | D", StandardOpenOption.APPEND);
+        storage.checkForExternalChange();
+        Storage.ExternalChange change = storage.takeExternalChange();
+        assertTrue(change.isAppend());
+        assertEquals(List.of("T | 0 | B", "T | 1 | C"), saveFormats(change.tasks()));
+        assertTrue(change.tasks().get(0).id > 0);
+        assertEquals(40, change.tasks().get(1).id);
+
+        Files.writeString(file, "\n", StandardOpenOption.APPEND);
+        storage.checkForExternalChange();
+        change = storage.takeExternalChange();
+        assertEquals(List.of("T | 0 | D"), saveFormats(change.tasks()));
+        assertEquals(41, change.tasks().get(0).id);
+        assertNull(storage.takeExternalChange());
+        storage.close();
+    }
+
+    @Test
+    void externalRewrite_rereadsFileAndReplaysJournal() throws IOException {
+        Path file = dir.resolve("tasks.txt");
+        Storage storage = new Storage(file.toString());
+        storage.load();
+        storage.save(List.of(new Yuri.Todo("A"), new Yuri.Todo("B")));
+        storage.appendDone(0, true);
+
+        Files.writeString(file, "T | 0 | X\nT | 0 | Y\nT | 0 | Z\n");
+        storage.checkForExternalChange();
+        assertTrue(storage.hasExternalChange());
+        Storage.ExternalChange change = storage.takeExternalChange();
+        assertFalse(change.isAppend());
+        assertEquals(List.of("T | 1 | X", "T | 0 | Y", "T | 0 | Z"), saveFormats(change.tasks()));
+        storage.close();
+    }
+
+    @Test
+    void externalRewrite_overtakenByOwnSnapshot_isDropped() throws IOException {
+        Path file = dir.resolve("tasks.txt");
+        Storage storage = new Storage(file.toString());
+        storage.load();
+        storage.save(List.of(new Yuri.Todo("A"), new Yuri.Todo("B")));
+        Files.writeString(file, "T | 0 | X\n");
+        storage.checkForExternalChange();
+        assertTrue(storage.hasExternalChange());
+        storage.save(List.of(new Yuri.Todo("A")));
+        assertNull(storage.takeExternalChange());
+        storage.close();
+    }
+
+    @Test
+    void watch_appliesAppendedTasksAndKeepsThemOnRestart() throws Exception {
+        Path file = dir.resolve("tasks.txt");
+        Yuri yuri = new Yuri(new Storage(file.toString()));
+        yuri.watchSaveFiles();
+        yuri.getResponse("todo mine");
+        Files.writeString(file, "T | 0 | theirs\n", StandardOpenOption.APPEND);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!yuri.hasExternalChange() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(yuri.getResponse("list").endsWith("1.[T][ ] mine\n 2.[T][ ] theirs"));
+        yuri.getResponse("delete 1");
+        yuri.shutdown();
+
+        List<Yuri.Task> reloaded = new Storage(file.toString()).load();
+        assertEquals(List.of("T | 0 | theirs"), saveFormats(reloaded));
+    }
+
+    private static List<String> saveFormats(List<Yuri.Task> tasks) {
+        List<String> out = new ArrayList<>();
+        for (Yuri.Task t : tasks) {
+            out.add(t.toSaveFormat());
+        }
+        return out;
+    }
+}
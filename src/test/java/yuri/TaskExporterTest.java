@@ -0,0 +1,106 @@
+package yuri;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskExporterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void csv_quotesFieldsThatNeedIt() throws IOException {
+        Path file = dir.resolve("tasks.csv");
+        assertEquals(3, TaskExporter.export(sample(), "main", TaskExporter.Format.CSV, file));
+        assertEquals(List.of(
+                "id,type,done,description,by,from,to,every,doneThrough",
+                "1,todo,true,\"read \"\"War, and Peace\"\"\",,,,,",
+                "2,deadline,false,report,2026-11-02,,,week,2026-11-09",
+                "3,event,false,café trip,,2026-11-10,2026-11-12,,"),
+                Files.readAllLines(file, StandardCharsets.UTF_8));
+        assertFalse(Files.exists(dir.resolve("tasks.csv.tmp")));
+    }
+
+    @Test
+    void json_escapesStringsAndOmitsMissingDates() throws IOException {
+        Path file = dir.resolve("tasks.json");
+        TaskExporter.export(sample(), "main", TaskExporter.Format.JSON, file);
+        assertEquals("[\n"
+                + "{\"id\":1,\"type\":\"todo\",\"done\":true,\"description\":\"read \\\"War, and Peace\\\"\"},\n"
+                + "{\"id\":2,\"type\":\"deadline\",\"done\":false,\"description\":\"report\","
+                + "\"by\":\"2026-11-02\",\"every\":\"week\",\"doneThrough\":\"2026-11-09\"},\n"
+                + "{\"id\":3,\"type\":\"event\",\"done\":false,\"description\":\"café trip\","
+                + "\"from\":\"2026-11-10\",\"to\":\"2026-11-12\"}\n"
+                + "]\n", Files.readString(file));
+
+        TaskExporter.export(new TaskList(), "main", TaskExporter.Format.JSON, file);
+        assertEquals("[]\n", Files.readString(file));
+    }
+
+    @Test
+    void ics_mapsDeadlinesToTodosAndEventsToAllDayEvents() throws IOException {
+        Path file = dir.resolve("tasks.ics");
+        TaskList tasks = sample();
+        Yuri.Task rent = new Yuri.RecurringEvent("rent", LocalDate.of(2026, 1, 30), LocalDate.of(2026, 1, 30),
+                Recurrence.MONTH);
+        rent.id = 4;
+        tasks.add(rent);
+        tasks.add(new Yuri.Todo("ü".repeat(60)));
+        TaskExporter.export(tasks, "work", TaskExporter.Format.ICS, file);
+
+        String ics = Files.readString(file, StandardCharsets.UTF_8);
+        assertTrue(ics.startsWith("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n"));
+        assertTrue(ics.endsWith("END:VTODO\r\nEND:VCALENDAR\r\n"));
+        assertTrue(ics.contains("UID:1.work@yuri\r\n"));
+        assertTrue(ics.contains("SUMMARY:read \"War\\, and Peace\"\r\nSTATUS:COMPLETED\r\n"));
+        // the report's first two occurrences are done
+        assertTrue(ics.contains("SUMMARY:report\r\nDTSTART;VALUE=DATE:20261116\r\nDURATION:P1D\r\n"
+                + "RRULE:FREQ=WEEKLY\r\nSTATUS:NEEDS-ACTION\r\nEND:VTODO"));
+        assertTrue(ics.contains("BEGIN:VEVENT\r\nUID:3.work@yuri\r\n"));
+        assertTrue(ics.contains("DTSTART;VALUE=DATE:20261110\r\nDTEND;VALUE=DATE:20261113\r\nEND:VEVENT"));
+        assertTrue(ics.contains("RRULE:FREQ=MONTHLY;BYMONTHDAY=28,29,30;BYSETPOS=-1\r\n"));
+        assertTrue(ics.contains("UID:task-5.work@yuri\r\n"));
+        for (String line : ics.split("\r\n")) {
+            assertTrue(line.getBytes(StandardCharsets.UTF_8).length <= 75, line);
+        }
+        assertTrue(ics.contains("SUMMARY:" + "ü".repeat(33) + "\r\n " + "ü".repeat(27) + "\r\n"));
+    }
+
+    @Test
+    void yuri_export_writesCurrentListAndRejectsBadArguments() throws IOException {
+        Yuri yuri = new Yuri(new Storage(dir.resolve("tasks.txt").toString()));
+        yuri.getResponse("todo read book");
+        yuri.getResponse("deadline report /by 2026-11-02");
+        Path file = dir.resolve("out.csv");
+
+        assertEquals("Exported 2 tasks to " + file + ".", yuri.getResponse("export CSV " + file));
+        assertEquals(3, Files.readAllLines(file).size());
+        assertTrue(yuri.getResponse("export xml " + file).contains("Export as csv, json or ics"));
+        assertTrue(yuri.getResponse("export csv").contains("Export as csv, json or ics"));
+        assertTrue(yuri.getResponse("export csv " + dir).contains("is a folder"));
+        assertTrue(yuri.getResponse("export json " + dir.resolve("missing").resolve("out.json"))
+                .startsWith("OOPS!!! Could not export"));
+        yuri.shutdown();
+    }
+
+    private static TaskList sample() {
+        Yuri.Task read = new Yuri.Todo("read \"War, and Peace\"");
+        read.mark();
+        Yuri.Task report = new Yuri.RecurringDeadline("report", LocalDate.of(2026, 11, 2), Recurrence.WEEK);
+        Yuri.Task trip = new Yuri.Event("café trip", "2026-11-10", "2026-11-12");
+        read.id = 1;
+        report.setDoneThrough(LocalDate.of(2026, 11, 9));
+        report.id = 2;
+        trip.id = 3;
+        return new TaskList(List.of(read, report, trip));
+    }
+}
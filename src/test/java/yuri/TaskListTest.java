@@ -2,13 +2,23 @@ package yuri;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class TaskListTest {
 
+    @TempDir
+    Path dir;
+
     private TaskList tasks;
 
     @BeforeEach
@@ -54,4 +64,214 @@ public class TaskListTest {
         assertEquals(1, view.size());
         assertThrows(UnsupportedOperationException.class, () -> view.add(t));
     }
+
+    @Test
+    void find_matchesWordPrefixes_caseInsensitive() {
+        tasks.add(new Yuri.Todo("Read Book"));
+        tasks.add(new Yuri.Todo("have lunch"));
+        tasks.add(new Yuri.Todo("bookshelf repair"));
+        assertArrayEquals(new int[]{0, 2}, tasks.findPositions("book"));
+        assertArrayEquals(new int[]{1}, tasks.findPositions("LUNCH"));
+        assertEquals(0, tasks.find("ook").size());
+    }
+
+    @Test
+    void find_andWithinGroup_orAcrossGroups() {
+        tasks.add(new Yuri.Todo("read book"));
+        tasks.add(new Yuri.Todo("return book"));
+        tasks.add(new Yuri.Todo("have lunch"));
+        assertArrayEquals(new int[]{1}, tasks.findPositions("book return"));
+        assertArrayEquals(new int[]{0, 2}, tasks.findPositions("read book /or lunch"));
+    }
+
+    @Test
+    void find_splitsOnlyOnStandaloneOr() {
+        tasks.add(new Yuri.Todo("a orbit"));
+        tasks.add(new Yuri.Todo("apple"));
+        tasks.add(new Yuri.Todo("bake bread"));
+        assertArrayEquals(new int[]{0}, tasks.findPositions("a/orb"));
+        assertArrayEquals(new int[]{0, 1, 2}, tasks.findPositions("a /OR b"));
+        assertArrayEquals(new int[]{2}, tasks.findPositions("/or bread"));
+        assertArrayEquals(new int[]{0}, tasks.findPositions("orbit/or"));
+    }
+
+    @Test
+    void find_afterRemovals_reportsShiftedPositions() {
+        for (int i = 0; i < 3000; i++) {
+            tasks.add(new Yuri.Todo((i % 3 == 0 ? "alpha " : "beta ") + i));
+        }
+        for (int i = 0; i < 2500; i++) {
+            tasks.remove(0);
+        }
+        int[] hits = tasks.findPositions("alpha");
+        assertEquals(166, hits.length);
+        for (int pos : hits) {
+            assertTrue(tasks.get(pos).getDescription().startsWith("alpha"));
+        }
+        assertThrows(IllegalArgumentException.class, () -> tasks.find("  "));
+    }
+
+    @Test
+    void due_tracksPendingDeadlinesByDate() {
+        tasks.add(new Yuri.Deadline("late", "2019-12-05"));
+        tasks.add(new Yuri.Todo("no date"));
+        tasks.add(new Yuri.Deadline("early", "2019-12-01"));
+        tasks.add(new Yuri.Deadline("same day", "2019-12-05"));
+
+        assertArrayEquals(new int[]{0, 3}, tasks.dueOn(LocalDate.of(2019, 12, 5)));
+        assertArrayEquals(new int[]{2, 0, 3}, tasks.dueBefore(LocalDate.of(2019, 12, 6)));
+
+        tasks.mark(0);
+        assertArrayEquals(new int[]{3}, tasks.dueOn(LocalDate.of(2019, 12, 5)));
+        tasks.unmark(0);
+        tasks.remove(1);
+        assertArrayEquals(new int[]{1, 0, 2}, tasks.dueBefore(LocalDate.of(2019, 12, 6)));
+        assertEquals(0, tasks.dueBefore(LocalDate.of(2019, 12, 1)).length);
+    }
+
+    @Test
+    void due_recurringDeadline_isListedOncePerQuery() {
+        tasks.add(new Yuri.Deadline("once", "2026-11-09"));
+        tasks.add(new Yuri.RecurringDeadline("weekly", LocalDate.of(2026, 11, 2), Recurrence.WEEK));
+        tasks.add(new Yuri.Todo("no date"));
+        tasks.add(new Yuri.RecurringDeadline("monthly", LocalDate.of(2026, 10, 31), Recurrence.MONTH));
+
+        assertArrayEquals(new int[]{0, 1}, tasks.dueOn(LocalDate.of(2026, 11, 9)));
+        assertArrayEquals(new int[]{1}, tasks.dueOn(LocalDate.of(2031, 6, 2)));
+        assertArrayEquals(new int[]{1, 3}, tasks.dueOn(LocalDate.of(2026, 11, 30)));
+        assertArrayEquals(new int[]{3}, tasks.dueOn(LocalDate.of(2026, 12, 31)));
+        // nothing is done, so monthly is open from Oct 31 and weekly from Nov 2
+        assertArrayEquals(new int[]{3, 1, 0}, tasks.dueBefore(LocalDate.of(2026, 12, 1)));
+        assertArrayEquals(new int[]{3}, tasks.dueBefore(LocalDate.of(2026, 11, 2)));
+
+        tasks.setDoneThrough(1, LocalDate.of(2026, 11, 9));
+        assertArrayEquals(new int[]{0}, tasks.dueOn(LocalDate.of(2026, 11, 9)));
+        assertArrayEquals(new int[]{1}, tasks.dueOn(LocalDate.of(2026, 11, 16)));
+        assertArrayEquals(new int[]{3, 0, 1}, tasks.dueBefore(LocalDate.of(2026, 12, 1)));
+        assertArrayEquals(new int[]{3, 0}, tasks.dueBefore(LocalDate.of(2026, 11, 16)));
+        tasks.setDoneThrough(1, null);
+
+        tasks.mark(1);
+        tasks.remove(0);
+        assertArrayEquals(new int[0], tasks.dueOn(LocalDate.of(2026, 11, 9)));
+        tasks.unmark(0);
+        assertArrayEquals(new int[]{0}, tasks.dueOn(LocalDate.of(2026, 11, 9)));
+        assertArrayEquals(new int[]{2, 0}, tasks.dueBefore(LocalDate.of(2026, 12, 1)));
+    }
+
+    @Test
+    void removeAll_keepsIndexesConsistent_forSmallAndLargeBatches() {
+        for (int i = 0; i < 300; i++) {
+            tasks.add(i % 3 == 0
+                    ? new Yuri.Deadline("return book " + i, LocalDate.of(2024, 1, 1 + i % 20))
+                    : new Yuri.Todo("read book " + i));
+        }
+        List<Yuri.Task> removed = tasks.removeAll(new int[] {0, 1, 5});
+        assertEquals(3, removed.size());
+        assertEquals("return book 0", removed.get(0).getDescription());
+        assertEquals(297, tasks.size());
+        assertEquals("read book 2", tasks.get(0).getDescription());
+
+        int[] evens = new int[100];
+        for (int i = 0; i < evens.length; i++) {
+            evens[i] = i * 2;
+        }
+        tasks.removeAll(evens);
+        assertEquals(197, tasks.size());
+        int[] hits = tasks.findPositions("return");
+        for (int pos : hits) {
+            assertTrue(tasks.get(pos).getDescription().startsWith("return"));
+        }
+        for (int pos : tasks.dueBefore(LocalDate.of(2025, 1, 1))) {
+            assertTrue(tasks.get(pos) instanceof Yuri.Deadline);
+        }
+        assertEquals(hits.length, tasks.dueBefore(LocalDate.of(2025, 1, 1)).length);
+    }
+
+    @Test
+    void indexOfId_tracksPositionsAcrossRemovals() {
+        for (int i = 1; i <= 200; i++) {
+            Yuri.Task t = new Yuri.Todo("t" + i);
+            t.id = i;
+            tasks.add(t);
+        }
+        tasks.remove(0);
+        tasks.removeAll(new int[] {0, 1, 2});
+        assertEquals(0, tasks.indexOfId(5));
+        assertEquals(195, tasks.indexOfId(200));
+        assertEquals(-1, tasks.indexOfId(1));
+        for (int i = 0; i < 150; i++) {
+            tasks.remove(0);
+        }
+        assertEquals(0, tasks.indexOfId(155));
+        assertEquals("t155", tasks.get(tasks.indexOfId(155)).getDescription());
+    }
+
+    @Test
+    void donePositions_listsMarkedTasks() {
+        for (int i = 0; i < 5; i++) {
+            tasks.add(new Yuri.Todo("t" + i));
+        }
+        tasks.markAll(new int[] {1, 3, 4});
+        tasks.unmarkAll(new int[] {4});
+        assertArrayEquals(new int[] {1, 3}, tasks.donePositions());
+    }
+
+    @Test
+    void lazyList_editsBeforeFirstQuery_areReflectedInIndexes() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 1; i <= 300; i++) {
+            lines.add("D | 0 | report " + i + " | 2024-01-" + String.format("%02d", i % 28 + 1) + " | #" + i);
+        }
+        Path file = dir.resolve("tasks.txt");
+        Files.write(file, lines);
+        tasks = new TaskList(SaveFileLoader.index(file));
+
+        assertEquals(41, tasks.indexOfId(42));
+        tasks.remove(0);
+        tasks.removeAll(new int[] {0, 1});
+        tasks.removeAll(IntStream.range(100, 200).toArray());
+        tasks.mark(tasks.indexOfId(10));
+        Yuri.Task added = new Yuri.Todo("report extra");
+        added.id = 301;
+        tasks.add(added);
+
+        assertEquals(198, tasks.size());
+        assertEquals(6, tasks.indexOfId(10));
+        assertEquals(-1, tasks.indexOfId(150));
+        assertEquals(197, tasks.indexOfId(301));
+        assertEquals(198, tasks.findPositions("report").length);
+        assertArrayEquals(new int[] {6, 96, 97, 98, 99}, tasks.findPositions("10"));
+        assertEquals(-1, tasks.indexOfId(150));
+        assertEquals(6, tasks.indexOfId(10));
+        // ids 4..103 and 204..300 remain; of those due on the 11th, id 10 is done
+        assertArrayEquals(new int[] {34, 62, 90, 102, 130, 158, 186}, tasks.dueOn(LocalDate.of(2024, 1, 11)));
+    }
+
+    @Test
+    void insertAll_undoesRemoveAll_includingIndexes() {
+        for (int i = 1; i <= 100; i++) {
+            Yuri.Task t = i % 2 == 0
+                    ? new Yuri.Deadline("return book " + i, LocalDate.of(2024, 1, 1 + i % 10))
+                    : new Yuri.Todo("read book " + i);
+            t.id = i;
+            tasks.add(t);
+        }
+        int[] before = tasks.findPositions("return");
+        int[] positions = {0, 7, 8, 50, 99};
+        List<Yuri.Task> removed = tasks.removeAll(positions);
+        tasks.add(new Yuri.Todo("read extra"));
+        tasks.remove(tasks.size() - 1);
+
+        tasks.insertAll(positions, removed);
+        assertEquals(100, tasks.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i + 1, tasks.get(i).getId());
+            assertEquals(i, tasks.indexOfId(i + 1));
+        }
+        assertArrayEquals(before, tasks.findPositions("return"));
+        assertArrayEquals(new int[] {7, 17, 27, 37, 47, 57, 67, 77, 87, 97},
+                tasks.dueOn(LocalDate.of(2024, 1, 9)));
+        assertArrayEquals(new int[] {7, 79, 80, 81, 82, 83, 84, 85, 86, 87, 88}, tasks.findPositions("8"));
+    }
 }
@@ -0,0 +1,131 @@
+package yuri;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskListsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void open_cachedList_returnsSameInstance() {
+        TaskLists lists = new TaskLists(new Storage(dir.resolve("tasks.txt").toString()), 2,
+                new Metrics(), msg -> fail(msg));
+        TaskLists.Loaded work = lists.open("work");
+        assertSame(work, lists.open("work"));
+        assertSame(work, lists.peek("work"));
+        assertNull(lists.peek("home"));
+        assertTrue(Files.exists(dir.resolve("lists").resolve("work.txt")));
+    }
+
+    @Test
+    void open_beyondCapacity_evictsLeastRecentlyUsedAndFlushesIt() throws IOException {
+        TaskLists lists = new TaskLists(new Storage(dir.resolve("tasks.txt").toString()), 2,
+                new Metrics(), msg -> fail(msg));
+        lists.setAutoFlush(false);
+        TaskLists.Loaded a = lists.open("a");
+        Yuri.Task t = new Yuri.Todo("buffered");
+        a.storage.assignId(t);
+        a.tasks.add(t);
+        a.storage.appendAdd(t);
+        a.isDirty = true;
+        lists.open("b");
+        lists.open("a");
+        lists.open("c");
+
+        assertNotNull(lists.peek("a"));
+        assertNull(lists.peek("b"));
+        lists.open("d");
+        assertNull(lists.peek("a"));
+        assertEquals(List.of("buffered"), descriptions(lists.open("a").tasks));
+    }
+
+    @Test
+    void open_evictingAList_stopsItsCompactorThread() throws IOException, InterruptedException {
+        TaskLists lists = new TaskLists(new Storage(dir.resolve("tasks.txt").toString()), 1,
+                new Metrics(), msg -> fail(msg));
+        Set<Thread> before = compactorThreads();
+        TaskLists.Loaded a = lists.open("a");
+        Yuri.Task t = new Yuri.Todo("journaled");
+        a.storage.assignId(t);
+        a.tasks.add(t);
+        a.storage.appendAdd(t);
+        a.storage.compactNow(a.tasks::snapshot);
+        Set<Thread> started = compactorThreads();
+        started.removeAll(before);
+        assertEquals(1, started.size());
+
+        lists.open("b");
+        Thread compactor = started.iterator().next();
+        compactor.join(5000);
+        assertFalse(compactor.isAlive());
+    }
+
+    @Test
+    void names_listsSavedAndLoadedListsAfterMain() throws IOException {
+        Storage main = new Storage(dir.resolve("tasks.txt").toString());
+        Files.createDirectories(dir.resolve("lists"));
+        Files.createFile(dir.resolve("lists").resolve("zoo.txt"));
+        Files.createFile(dir.resolve("lists").resolve("notes.md"));
+        TaskLists lists = new TaskLists(main, 4, new Metrics(), msg -> fail(msg));
+        lists.open("work");
+        assertEquals(List.of("main", "work", "zoo"), lists.names());
+    }
+
+    @Test
+    void yuri_use_keepsListsSeparateAcrossRestarts() {
+        String file = dir.resolve("tasks.txt").toString();
+        Yuri yuri = new Yuri(new Storage(file), 2);
+        yuri.getResponse("todo in main");
+        assertEquals("Now using list 'work' with 0 tasks.", yuri.getResponse("use Work"));
+        yuri.getResponse("todo in work");
+        yuri.getResponse("todo also in work");
+        assertEquals("Now using list 'main' with 1 task.", yuri.getResponse("use main"));
+        assertTrue(yuri.getResponse("undo").startsWith("Undone: added [T][ ] in main."),
+                "each list keeps its own history");
+        yuri.shutdown();
+
+        Yuri reopened = new Yuri(new Storage(file), 1);
+        assertTrue(reopened.getResponse("lists").endsWith("\n * main (0 tasks)\n   work"));
+        assertTrue(reopened.getResponse("use work").endsWith("with 2 tasks."));
+        assertTrue(reopened.getResponse("list").contains("2.[T][ ] also in work"));
+        reopened.shutdown();
+    }
+
+    @Test
+    void yuri_use_rejectsUnsafeNames() {
+        Yuri yuri = new Yuri(new Storage(dir.resolve("tasks.txt").toString()));
+        assertTrue(yuri.getResponse("use ../escape").contains("List names use only"));
+        assertTrue(yuri.getResponse("use").contains("Which list?"));
+        assertFalse(Files.exists(dir.resolve("escape.txt")));
+    }
+
+    private static Set<Thread> compactorThreads() {
+        Set<Thread> threads = new HashSet<>();
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().equals("yuri-compactor")) {
+                threads.add(t);
+            }
+        }
+        return threads;
+    }
+
+    private static List<String> descriptions(TaskStore tasks) {
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            out.add(tasks.get(i).description);
+        }
+        return out;
+    }
+}
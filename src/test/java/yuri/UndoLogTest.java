@@ -0,0 +1,75 @@
+package yuri;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UndoLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void undoRedo_walkBackAndForthInOrder() {
+        List<String> applied = new ArrayList<>();
+        UndoLog log = new UndoLog(10);
+        for (String name : new String[] {"a", "b"}) {
+            applied.add(name);
+            log.record(new UndoLog.Edit(name, () -> applied.remove(name), () -> applied.add(name)));
+        }
+
+        assertEquals("b", log.undo().description());
+        assertEquals("a", log.undo().description());
+        assertNull(log.undo());
+        assertEquals(List.of(), applied);
+        assertEquals("a", log.redo().description());
+        assertEquals(List.of("a"), applied);
+
+        log.record(new UndoLog.Edit("c", () -> { }, () -> { }));
+        assertNull(log.redo());
+    }
+
+    @Test
+    void record_beyondLimit_dropsOldestEdit() {
+        UndoLog log = new UndoLog(2);
+        for (String name : new String[] {"a", "b", "c"}) {
+            log.record(new UndoLog.Edit(name, () -> { }, () -> { }));
+        }
+        assertEquals("c", log.undo().description());
+        assertEquals("b", log.undo().description());
+        assertNull(log.undo());
+    }
+
+    @Test
+    void yuri_undoDeleteAndMark_isPersisted() throws IOException {
+        String file = dir.resolve("tasks.txt").toString();
+        Yuri yuri = new Yuri(new Storage(file));
+        for (String desc : new String[] {"A", "B", "C", "D"}) {
+            yuri.getResponse("todo " + desc);
+        }
+        yuri.getResponse("mark 1-2");
+        yuri.getResponse("mark 2");
+        yuri.getResponse("delete 2,4");
+
+        assertTrue(yuri.getResponse("undo").startsWith("Undone: removed 2 tasks."));
+        assertTrue(yuri.getResponse("undo").startsWith("Undone: marked 2 tasks."));
+        assertTrue(yuri.getResponse("redo").startsWith("Redone: marked 2 tasks."));
+        yuri.getResponse("undo");
+        assertTrue(yuri.getResponse("undo").startsWith("Undone: added [T][ ] D."));
+        yuri.shutdown();
+
+        List<Yuri.Task> loaded = new Storage(file).load();
+        assertEquals(3, loaded.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(String.valueOf((char) ('A' + i)), loaded.get(i).getDescription());
+            assertEquals(i + 1, loaded.get(i).getId());
+            assertFalse(loaded.get(i).isDone);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package yuri;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class YuriTest {
+
+    @Test
+    void positiveOption_rejectsMissingNonNumericAndOutOfRangeValues() throws Yuri.YuriException {
+        String[] args = {"--group", "500", "--window-ms", "-1", "--group", "x", "--group"};
+        assertEquals(500, Yuri.positiveOption(args, 1, "--group", Integer.MAX_VALUE));
+        assertTrue(assertThrows(Yuri.YuriException.class,
+                () -> Yuri.positiveOption(args, 3, "--window-ms", Long.MAX_VALUE)).getMessage().contains("'-1'"));
+        assertThrows(Yuri.YuriException.class, () -> Yuri.positiveOption(args, 5, "--group", Integer.MAX_VALUE));
+        assertThrows(Yuri.YuriException.class,
+                () -> Yuri.positiveOption(new String[] {"--group", "3000000000"}, 1, "--group", Integer.MAX_VALUE));
+        Yuri.YuriException missing = assertThrows(Yuri.YuriException.class,
+                () -> Yuri.positiveOption(args, 7, "--group", Integer.MAX_VALUE));
+        assertEquals("Missing value after --group.", missing.getMessage());
+    }
+}